@@ -0,0 +1,337 @@
+package flynn.tdd.di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@code flynn.tdd.di.ComponentFactory} for every concrete class that has {@code @Inject} members or a
+ * scope annotation, applying the same rules as {@code InjectionProvider}. Components that break those rules are
+ * reported as compile errors; components the generated code cannot reach (private members, package-private members
+ * of another package) are left to runtime introspection.
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentProcessor extends AbstractProcessor {
+    static final String INJECT = "jakarta.inject.Inject";
+    static final String QUALIFIER = "jakarta.inject.Qualifier";
+    static final String SCOPE = "jakarta.inject.Scope";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        messager = processingEnv.getMessager();
+
+        for (TypeElement type : ElementFilter.typesIn(round.getRootElements()))
+            visit(type);
+        return false;
+    }
+
+    private void visit(TypeElement type) {
+        if (isComponent(type)) new Component(type).generate();
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements()))
+            visit(nested);
+    }
+
+    private boolean isComponent(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) return false;
+        return !annotated(type, SCOPE).isEmpty() || hierarchy(type).stream().flatMap(t -> t.getEnclosedElements().stream())
+                .anyMatch(e -> isAnnotationPresent(e, INJECT));
+    }
+
+    private class Component {
+        private final TypeElement type;
+        private final List<Injectable> injectables = new ArrayList<>();
+        private boolean legal = true;
+        private String unreachable;
+
+        Component(TypeElement type) {
+            this.type = type;
+        }
+
+        void generate() {
+            if (annotated(type, SCOPE).size() > 1) error(type, "multiple scope annotations");
+            injectables.add(constructor());
+            injectables.addAll(fields());
+            injectables.addAll(methods());
+            if (!legal) return;
+
+            if (!reachable(type)) unreachable = type + " is not accessible";
+            for (Injectable injectable : injectables) injectable.checkReachable();
+            if (unreachable != null) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "No factory generated, " + unreachable, type);
+                return;
+            }
+            write();
+        }
+
+        private Injectable constructor() {
+            List<ExecutableElement> injects = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                    .filter(c -> isAnnotationPresent(c, INJECT) && c.getModifiers().contains(Modifier.PUBLIC)).toList();
+            if (injects.size() > 1) error(type, "multiple @Inject constructors");
+            Optional<ExecutableElement> constructor = injects.stream().findFirst().or(() ->
+                    ElementFilter.constructorsIn(type.getEnclosedElements()).stream().filter(c -> c.getParameters().isEmpty()).findFirst());
+            if (constructor.isEmpty()) {
+                error(type, "no @Inject constructor nor default constructor");
+                return new Injectable(type, List.of());
+            }
+            return new Injectable(constructor.get(), constructor.get().getParameters());
+        }
+
+        private List<Injectable> fields() {
+            List<Injectable> fields = new ArrayList<>();
+            for (TypeElement current : hierarchy(type))
+                for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                    if (!isAnnotationPresent(field, INJECT)) continue;
+                    if (field.getModifiers().contains(Modifier.FINAL)) error(field, "final @Inject field");
+                    fields.add(new Injectable(field, List.of(field)));
+                }
+            return fields;
+        }
+
+        // Mirrors InjectionProvider.getInjectMethods: walks from the component up, indexing every declared method by
+        // name, so an @Inject method is dropped when any subclass method overrides it, annotated or not.
+        private List<Injectable> methods() {
+            Map<Name, List<ExecutableElement>> overriders = new HashMap<>();
+            List<ExecutableElement> methods = new ArrayList<>();
+            for (TypeElement current : hierarchy(type)) {
+                List<ExecutableElement> declared = ElementFilter.methodsIn(current.getEnclosedElements());
+                for (ExecutableElement method : declared)
+                    if (isAnnotationPresent(method, INJECT) && !isOverridden(overriders, method)) methods.add(method);
+                for (ExecutableElement method : declared)
+                    overriders.computeIfAbsent(method.getSimpleName(), n -> new ArrayList<>(1)).add(method);
+            }
+            Collections.reverse(methods);
+            for (ExecutableElement method : methods)
+                if (!method.getTypeParameters().isEmpty()) error(method, "@Inject method with type parameters");
+            return methods.stream().map(m -> new Injectable(m, m.getParameters())).toList();
+        }
+
+        private void error(Element element, String message) {
+            legal = false;
+            messager.printMessage(Diagnostic.Kind.ERROR, "Illegal component " + type + ": " + message, element);
+        }
+
+        private class Injectable {
+            final Element element;
+            final List<? extends VariableElement> required;
+
+            Injectable(Element element, List<? extends VariableElement> required) {
+                this.element = element;
+                this.required = required;
+                for (VariableElement point : required)
+                    if (annotated(point, QUALIFIER).size() > 1) error(point, "multiple qualifiers on " + point);
+            }
+
+            void checkReachable() {
+                if (element.getModifiers().contains(Modifier.PRIVATE)) unreachable = element + " is private";
+                TypeElement declaring = (TypeElement) element.getEnclosingElement();
+                if (!samePackage(declaring) && (!element.getModifiers().contains(Modifier.PUBLIC) || !reachable(declaring)))
+                    unreachable = element + " is not accessible from " + packageOf(type);
+                for (VariableElement point : required)
+                    if (!reachable(point.asType())) unreachable = point.asType() + " is not accessible from " + packageOf(type);
+            }
+
+            String invoke(String instance, int offset) {
+                String arguments = arguments(offset);
+                String owner = isStatic() ? erasure(element.getEnclosingElement().asType()) : instance;
+                return switch (element.getKind()) {
+                    case CONSTRUCTOR, CLASS -> "new " + type.getQualifiedName() + "(" + arguments + ")";
+                    case FIELD -> owner + "." + element.getSimpleName() + " = " + arguments;
+                    default -> owner + "." + element.getSimpleName() + "(" + arguments + ")";
+                };
+            }
+
+            private String arguments(int offset) {
+                List<String> arguments = new ArrayList<>();
+                for (int i = 0; i < required.size(); i++)
+                    arguments.add("(" + required.get(i).asType() + ") dependencies[" + (offset + i) + "]");
+                return String.join(", ", arguments);
+            }
+
+            private boolean isStatic() {
+                return element.getModifiers().contains(Modifier.STATIC);
+            }
+
+            List<String> refs() {
+                List<String> refs = new ArrayList<>();
+                for (int i = 0; i < required.size(); i++) refs.add(ref(required.get(i), i));
+                return refs;
+            }
+
+            private String ref(VariableElement point, int index) {
+                String qualifier = annotated(point, QUALIFIER).stream().findFirst()
+                        .map(q -> member() + (element.getKind() == ElementKind.FIELD ? "" : ".getParameters()[" + index + "]")
+                                + ".getAnnotation(" + erasure(q.getAnnotationType()) + ".class)").orElse(null);
+                TypeMirror type = point.asType();
+                if (type instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty())
+                    return "ComponentRef.of(" + erasure(type) + ".class, " + erasure(declared.getTypeArguments().get(0)) + ".class, " + qualifier + ")";
+                return "ComponentRef.of(" + erasure(type) + ".class" + (qualifier == null ? "" : ", " + qualifier) + ")";
+            }
+
+            private String member() {
+                String declaring = erasure(element.getEnclosingElement().asType()) + ".class";
+                String parameters = element instanceof ExecutableElement executable ? executable.getParameters().stream()
+                        .map(p -> ", " + erasure(p.asType()) + ".class").collect(Collectors.joining()) : "";
+                return switch (element.getKind()) {
+                    case FIELD -> declaring + ".getDeclaredField(\"" + element.getSimpleName() + "\")";
+                    case CONSTRUCTOR -> declaring + ".getDeclaredConstructor(" + parameters.replaceFirst(", ", "") + ")";
+                    default -> declaring + ".getDeclaredMethod(\"" + element.getSimpleName() + "\"" + parameters + ")";
+                };
+            }
+
+            boolean reflective() {
+                return required.stream().anyMatch(p -> !annotated(p, QUALIFIER).isEmpty());
+            }
+        }
+
+        private void write() {
+            String packageName = packageOf(type);
+            String factory = factoryName(type);
+            String component = type.getQualifiedName().toString();
+            List<String> refs = injectables.stream().flatMap(i -> i.refs().stream()).toList();
+            boolean reflective = injectables.stream().anyMatch(Injectable::reflective);
+
+            StringBuilder source = new StringBuilder();
+            if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+            source.append("import flynn.tdd.di.ComponentFactory;\n")
+                    .append("import flynn.tdd.di.ComponentRef;\n\n")
+                    .append("import java.util.List;\n\n")
+                    .append("@javax.annotation.processing.Generated(\"").append(ComponentProcessor.class.getName()).append("\")\n")
+                    .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                    .append("public final class ").append(factory).append(" implements ComponentFactory<").append(component).append("> {\n")
+                    .append("    private static final List<ComponentRef<?>> DEPENDENCIES = dependencies();\n\n")
+                    .append("    private static List<ComponentRef<?>> dependencies() {\n");
+            String list = "List.<ComponentRef<?>>of(" + String.join(",\n                ", refs) + ")";
+            if (reflective)
+                source.append("        try {\n")
+                        .append("            return ").append(list).append(";\n")
+                        .append("        } catch (ReflectiveOperationException e) {\n")
+                        .append("            throw new IllegalStateException(e);\n")
+                        .append("        }\n");
+            else source.append("        return ").append(list).append(";\n");
+            source.append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public List<ComponentRef<?>> getDependencies() {\n")
+                    .append("        return DEPENDENCIES;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public ").append(component).append(" newInstance(Object[] dependencies) {\n");
+            int offset = 0;
+            for (Injectable injectable : injectables) {
+                String statement = injectable.invoke("instance", offset);
+                if (injectable == injectables.get(0))
+                    source.append("        ").append(component).append(" instance = ").append(statement).append(";\n");
+                else source.append("        ").append(statement).append(";\n");
+                offset += injectable.required.size();
+            }
+            source.append("        return instance;\n")
+                    .append("    }\n")
+                    .append("}\n");
+
+            try (Writer writer = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? factory : packageName + "." + factory, type).openWriter()) {
+                writer.write(source.toString());
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write factory for " + type + ": " + e.getMessage(), type);
+            }
+        }
+
+        private boolean samePackage(TypeElement other) {
+            return packageOf(type).equals(packageOf(other));
+        }
+
+        private boolean reachable(TypeElement element) {
+            for (Element current = element; current instanceof TypeElement; current = current.getEnclosingElement()) {
+                if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+                if (!samePackage((TypeElement) current) && !current.getModifiers().contains(Modifier.PUBLIC)) return false;
+            }
+            return true;
+        }
+
+        private boolean reachable(TypeMirror mirror) {
+            if (mirror.getKind().isPrimitive()) return true;
+            if (mirror.getKind() == TypeKind.ARRAY) return reachable(((javax.lang.model.type.ArrayType) mirror).getComponentType());
+            if (!(mirror instanceof DeclaredType declared)) return false;
+            return reachable((TypeElement) declared.asElement()) && declared.getTypeArguments().stream().allMatch(this::reachable);
+        }
+    }
+
+    private List<TypeElement> hierarchy(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+             current = (TypeElement) types.asElement(current.getSuperclass()))
+            hierarchy.add(current);
+        return hierarchy;
+    }
+
+    private boolean isOverridden(Map<Name, List<ExecutableElement>> overriders, ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) return false;
+        return overriders.getOrDefault(method.getSimpleName(), List.of()).stream()
+                .anyMatch(other -> sameSignature(method, other) && isOverride(method, other));
+    }
+
+    private boolean isOverride(ExecutableElement method, ExecutableElement other) {
+        if (other.getModifiers().contains(Modifier.STATIC)) return false;
+        if (method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.PROTECTED)) return true;
+        return packageOf((TypeElement) method.getEnclosingElement()).equals(packageOf((TypeElement) other.getEnclosingElement()));
+    }
+
+    private boolean sameSignature(ExecutableElement method, ExecutableElement other) {
+        if (!method.getSimpleName().equals(other.getSimpleName()) || method.getParameters().size() != other.getParameters().size())
+            return false;
+        for (int i = 0; i < method.getParameters().size(); i++)
+            if (!types.isSameType(types.erasure(method.getParameters().get(i).asType()), types.erasure(other.getParameters().get(i).asType())))
+                return false;
+        return true;
+    }
+
+    private List<AnnotationMirror> annotated(Element element, String metaAnnotation) {
+        return element.getAnnotationMirrors().stream()
+                .filter(a -> isAnnotationPresent(a.getAnnotationType().asElement(), metaAnnotation)).collect(Collectors.toList());
+    }
+
+    private boolean isAnnotationPresent(Element element, String annotation) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation));
+    }
+
+    private String erasure(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private String packageOf(TypeElement type) {
+        return elements.getPackageOf(type).getQualifiedName().toString();
+    }
+
+    static String factoryName(TypeElement type) {
+        List<String> names = new ArrayList<>();
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement())
+            names.add(0, current.getSimpleName().toString());
+        return String.join("_", names) + "_Factory";
+    }
+}
@@ -0,0 +1,222 @@
+package flynn.tdd.di.processor;
+
+import flynn.tdd.di.ComponentRef;
+import flynn.tdd.di.Context;
+import flynn.tdd.di.ContextConfig;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.processing.Processor;
+import javax.tools.*;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComponentProcessorTest {
+    @TempDir
+    Path output;
+
+    @Nested
+    class FactoryGeneration {
+        @Test
+        public void should_generate_factory_used_by_context_config() throws Exception {
+            Compilation compilation = compile(Map.of(
+                    "sample.Repository", "package sample; public interface Repository {}",
+                    "sample.Service", """
+                            package sample;
+                            import jakarta.inject.*;
+                            public class Service {
+                                public final Repository repository;
+                                @Inject @Named("audit") public Repository audit;
+                                public Provider<Repository> provider;
+                                @Inject public Service(Repository repository) { this.repository = repository; }
+                                @Inject void install(Provider<Repository> provider) { this.provider = provider; }
+                            }
+                            """));
+            assertTrue(compilation.success(), compilation.diagnostics().toString());
+            assertTrue(Files.exists(output.resolve("sample/Service_Factory.class")));
+
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+                Class<Object> repository = (Class<Object>) loader.loadClass("sample.Repository");
+                Class<Object> service = (Class<Object>) loader.loadClass("sample.Service");
+                Object primary = proxy(repository);
+                Object audit = proxy(repository);
+
+                ContextConfig config = new ContextConfig();
+                config.bind(repository, primary);
+                config.bind(repository, audit, new NamedLiteral("audit"));
+                config.<Object, Object>bind(service, service);
+                Context context = config.getContext();
+
+                Object instance = context.get(ComponentRef.of(service)).get();
+                assertSame(primary, service.getField("repository").get(instance));
+                assertSame(audit, service.getField("audit").get(instance));
+                assertSame(primary, ((Provider<?>) service.getField("provider").get(instance)).get());
+            }
+        }
+
+        @Test
+        public void should_not_inject_method_overridden_without_inject_further_up_like_runtime() throws Exception {
+            Map<String, String> sources = Map.of(
+                    "sample.A", "package sample; public class A { @jakarta.inject.Inject public void m() { B.calls++; } }",
+                    "sample.B", "package sample; public class B extends A { public static int calls; public void m() { calls += 100; } }",
+                    "sample.C", "package sample; public class C extends B {}");
+            assertTrue(compile(sources).success());
+            assertTrue(Files.exists(output.resolve("sample/C_Factory.class")));
+            Path runtime = output.resolve("runtime");
+            assertTrue(compile(sources, runtime, List.of()).success());
+            assertFalse(Files.exists(runtime.resolve("sample/C_Factory.class")));
+
+            assertEquals(0, injectCalls(output));
+            assertEquals(0, injectCalls(runtime));
+        }
+
+        private int injectCalls(Path classes) throws Exception {
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+                Class<Object> component = (Class<Object>) loader.loadClass("sample.C");
+                ContextConfig config = new ContextConfig();
+                config.<Object, Object>bind(component, component);
+                config.getContext().get(ComponentRef.of(component)).get();
+                return loader.loadClass("sample.B").getField("calls").getInt(null);
+            }
+        }
+
+        @Test
+        public void should_leave_component_with_private_inject_field_to_runtime() throws IOException {
+            Compilation compilation = compile(Map.of("sample.Component", """
+                    package sample;
+                    public class Component {
+                        @jakarta.inject.Inject private Runnable runnable;
+                    }
+                    """));
+            assertTrue(compilation.success());
+            assertFalse(Files.exists(output.resolve("sample/Component_Factory.class")));
+        }
+    }
+
+    @Nested
+    class IllegalComponent {
+        @Test
+        public void should_report_multi_inject_constructors() throws IOException {
+            assertError("multiple @Inject constructors", """
+                    package sample;
+                    public class Component {
+                        @jakarta.inject.Inject public Component(String name) {}
+                        @jakarta.inject.Inject public Component(String name, Runnable runnable) {}
+                    }
+                    """);
+        }
+
+        @Test
+        public void should_report_final_inject_field() throws IOException {
+            assertError("final @Inject field", """
+                    package sample;
+                    public class Component {
+                        @jakarta.inject.Inject final Runnable runnable = null;
+                    }
+                    """);
+        }
+
+        @Test
+        public void should_report_multi_qualifiers() throws IOException {
+            assertError("multiple qualifiers", """
+                    package sample;
+                    import jakarta.inject.*;
+                    public class Component {
+                        @Inject @Named("a") @Other Runnable runnable;
+                        @Qualifier @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) @interface Other {}
+                    }
+                    """);
+        }
+
+        @Test
+        public void should_report_multi_scopes() throws IOException {
+            assertError("multiple scope annotations", """
+                    package sample;
+                    import jakarta.inject.*;
+                    @Singleton @Component.Pooled
+                    public class Component {
+                        @Scope @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) @interface Pooled {}
+                    }
+                    """);
+        }
+
+        private void assertError(String message, String source) throws IOException {
+            Compilation compilation = compile(Map.of("sample.Component", source));
+            assertFalse(compilation.success());
+            assertTrue(compilation.diagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR
+                    && d.getMessage(null).contains(message)), compilation.diagnostics().toString());
+        }
+    }
+
+    record Compilation(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+    }
+
+    private Compilation compile(Map<String, String> sources) throws IOException {
+        return compile(sources, output, List.of(new ComponentProcessor()));
+    }
+
+    private Compilation compile(Map<String, String> sources, Path output, List<Processor> processors) throws IOException {
+        Files.createDirectories(output);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<JavaFileObject> units = sources.entrySet().stream().<JavaFileObject>map(e -> new Source(e.getKey(), e.getValue())).toList();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-d", output.toString(), "-classpath", System.getProperty("java.class.path")), null, units);
+            task.setProcessors(processors);
+            return new Compilation(task.call(), diagnostics.getDiagnostics());
+        }
+    }
+
+    private static Object proxy(Class<?> type) {
+        return java.lang.reflect.Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> null;
+                });
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    record NamedLiteral(String value) implements Named {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Named named && value.equals(named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+}
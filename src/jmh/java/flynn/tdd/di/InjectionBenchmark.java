@@ -0,0 +1,110 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectionBenchmark {
+
+    private Context context;
+    private InjectionProvider<Service> methodHandle;
+    private InjectionProvider<Service> hiddenClass;
+    private ReflectiveInjection<Service> reflective;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.bind(Repository.class, new Repository());
+        config.bind(Clock.class, new Clock());
+        context = config.getContext();
+
+        methodHandle = new InjectionProvider<>(Service.class, InjectionMode.METHOD_HANDLE);
+        hiddenClass = new InjectionProvider<>(Service.class, InjectionMode.HIDDEN_CLASS);
+        reflective = new ReflectiveInjection<>(Service.class);
+    }
+
+    @Benchmark
+    public Service methodHandle() {
+        return methodHandle.get(context);
+    }
+
+    @Benchmark
+    public Service hiddenClass() {
+        return hiddenClass.get(context);
+    }
+
+    @Benchmark
+    public Service reflective() {
+        return reflective.get(context);
+    }
+
+    public static class Repository {
+    }
+
+    public static class Clock {
+    }
+
+    public static class Service {
+        final Repository repository;
+        @Inject
+        Clock clock;
+        Repository audit;
+
+        @Inject
+        public Service(Repository repository) {
+            this.repository = repository;
+        }
+
+        @Inject
+        void install(Repository audit) {
+            this.audit = audit;
+        }
+    }
+
+    // The Constructor.newInstance / Field.set / Method.invoke path InjectionProvider used before handles.
+    static class ReflectiveInjection<T> {
+        private final InjectionProvider.Injectable<Constructor<T>> constructor;
+        private final InjectionProvider.Injectable<Field>[] fields;
+        private final InjectionProvider.Injectable<Method>[] methods;
+
+        ReflectiveInjection(Class<T> component) {
+            this.constructor = InjectionProvider.Injectable.of((Constructor<T>) stream(component.getConstructors())
+                    .filter(c -> c.isAnnotationPresent(Inject.class)).findFirst().orElseThrow());
+            this.fields = stream(component.getDeclaredFields()).filter(f -> f.isAnnotationPresent(Inject.class))
+                    .map(InjectionProvider.Injectable::of).toArray(InjectionProvider.Injectable[]::new);
+            this.methods = stream(component.getDeclaredMethods()).filter(m -> m.isAnnotationPresent(Inject.class))
+                    .map(InjectionProvider.Injectable::of).toArray(InjectionProvider.Injectable[]::new);
+        }
+
+        T get(Context context) {
+            try {
+                T instance = constructor.element().newInstance(toDependencies(constructor, context));
+                for (InjectionProvider.Injectable<Field> field : fields)
+                    field.element().set(instance, toDependencies(field, context)[0]);
+                for (InjectionProvider.Injectable<Method> method : methods)
+                    method.element().invoke(instance, toDependencies(method, context));
+                return instance;
+            } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Object[] toDependencies(InjectionProvider.Injectable<?> injectable, Context context) {
+            return stream(injectable.required()).map(context::get).map(Optional::get).toArray();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package flynn.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compiles a chain of `depth` classes, each declaring `width` @Inject methods that override the level above
+// plus `width` plain methods, and measures @Inject method resolution on the most derived class.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntrospectionBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int depth;
+
+    @Param({"8", "64"})
+    public int width;
+
+    private Class<?> leaf;
+    private URLClassLoader loader;
+
+    @Setup
+    public void setup() throws Exception {
+        Path sources = Files.createTempDirectory("hierarchy");
+        List<String> files = new ArrayList<>();
+        for (int level = 0; level < depth; level++) {
+            StringBuilder source = new StringBuilder("package hierarchy; public class Level" + level);
+            if (level > 0) source.append(" extends Level").append(level - 1);
+            source.append(" {\n");
+            for (int i = 0; i < width; i++) {
+                source.append("  @jakarta.inject.Inject public void inject").append(i).append("(String value) {}\n");
+                source.append("  public void plain").append(level).append('_').append(i).append("(int value) {}\n");
+            }
+            Path file = sources.resolve("Level" + level + ".java");
+            Files.writeString(file, source.append("}\n"));
+            files.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-d", sources.toString(), "-classpath", System.getProperty("java.class.path")));
+        arguments.addAll(files);
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0)
+            throw new IOException("failed to compile synthetic hierarchy");
+        loader = new URLClassLoader(new URL[]{sources.toUri().toURL()}, getClass().getClassLoader());
+        leaf = loader.loadClass("hierarchy.Level" + (depth - 1));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loader.close();
+    }
+
+    @Benchmark
+    public Object injectMethods() {
+        return InjectionProvider.getInjectMethods(leaf);
+    }
+}
@@ -0,0 +1,55 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Context.get with metrics off (no wrappers bound) against metrics on, from one thread and from many.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Context context;
+    private final ComponentRef<Cache> singleton = ComponentRef.of(Cache.class);
+    private final ComponentRef<Request> prototype = ComponentRef.of(Request.class);
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        if (metrics) config.metrics();
+        config.bind(Cache.class, Cache.class);
+        config.bind(Request.class, Request.class);
+        context = config.getContext();
+    }
+
+    @Benchmark
+    public Cache singletonLookup() {
+        return context.getRequired(singleton);
+    }
+
+    @Benchmark
+    public Request prototypeLookup() {
+        return context.getRequired(prototype);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Cache contendedSingletonLookup() {
+        return context.getRequired(singleton);
+    }
+
+    @Singleton
+    public static class Cache {
+    }
+
+    public static class Request {
+    }
+}
@@ -0,0 +1,124 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    private Context context;
+    private final ComponentRef<Cache> singleton = ComponentRef.of(Cache.class);
+    private final ComponentRef<Level0> graph = ComponentRef.of(Level0.class);
+    private final ComponentRef<Lazy> provider = ComponentRef.of(Lazy.class);
+    private final ComponentRef<Cache> qualified = ComponentRef.of(Cache.class, new SyntheticGraph.NamedLiteral("secondary"));
+
+    @Setup
+    public void setup() {
+        context = startup();
+    }
+
+    @Benchmark
+    public Cache singletonLookup() {
+        return context.getRequired(singleton);
+    }
+
+    @Benchmark
+    public Level0 deepPrototypeGraph() {
+        return context.getRequired(graph);
+    }
+
+    @Benchmark
+    public Cache providerInjection() {
+        return context.getRequired(provider).cache.get();
+    }
+
+    @Benchmark
+    public Cache qualifierLookup() {
+        return context.getRequired(qualified);
+    }
+
+    @Benchmark
+    public Context startup() {
+        ContextConfig config = new ContextConfig();
+        config.bind(Cache.class, Cache.class);
+        config.bind(Cache.class, new Cache(), new SyntheticGraph.NamedLiteral("secondary"));
+        config.bind(Lazy.class, Lazy.class);
+        config.bind(Level0.class, Level0.class);
+        config.bind(Level1.class, Level1.class);
+        config.bind(Level2.class, Level2.class);
+        config.bind(Level3.class, Level3.class);
+        config.bind(Level4.class, Level4.class);
+        config.bind(Level5.class, Level5.class);
+        return config.getContext();
+    }
+
+    @Singleton
+    public static class Cache {
+    }
+
+    public static class Lazy {
+        @Inject
+        Provider<Cache> cache;
+    }
+
+    // Each level injects the next one twice (constructor and field), so one Level0 builds 63 prototypes.
+    public static class Level0 {
+        @Inject
+        Level1 field;
+
+        @Inject
+        public Level0(Level1 next, @Named("secondary") Cache cache) {
+        }
+    }
+
+    public static class Level1 {
+        @Inject
+        Level2 field;
+
+        @Inject
+        public Level1(Level2 next) {
+        }
+    }
+
+    public static class Level2 {
+        @Inject
+        Level3 field;
+
+        @Inject
+        public Level2(Level3 next) {
+        }
+    }
+
+    public static class Level3 {
+        @Inject
+        Level4 field;
+
+        @Inject
+        public Level3(Level4 next) {
+        }
+    }
+
+    public static class Level4 {
+        @Inject
+        Level5 field;
+
+        @Inject
+        public Level4(Level5 next) {
+        }
+    }
+
+    public static class Level5 {
+        @Inject
+        Cache cache;
+    }
+}
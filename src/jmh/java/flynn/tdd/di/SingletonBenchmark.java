@@ -0,0 +1,52 @@
+package flynn.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(64)
+public class SingletonBenchmark {
+
+    private Context context;
+    private SingletonProvider<Object> cold;
+    private SingletonProvider<Object> warm;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new ContextConfig().getContext();
+        warm = new SingletonProvider<>(SingletonBenchmark::construct);
+        warm.get(context);
+    }
+
+    // Every iteration hands all 64 threads a fresh provider, so each measured call races on a cold singleton.
+    @Setup(Level.Iteration)
+    public void reset() {
+        cold = new SingletonProvider<>(SingletonBenchmark::construct);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 200)
+    public Object coldContended() {
+        return cold.get(context);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object warmContended() {
+        return warm.get(context);
+    }
+
+    private static Object construct(Context context) {
+        Blackhole.consumeCPU(10_000);
+        return new Object();
+    }
+}
@@ -0,0 +1,105 @@
+package flynn.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cold start of a context over `components` synthetic classes, each a three level hierarchy with @Inject
+// constructor, fields and methods among plain ones. Every fork compiles the classes and starts once through a
+// throwaway class loader, recording the plan in the planned variant, so both variants measure a loader meeting
+// the classes for the first time with the framework itself equally warm.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+    private static final int PLAIN_METHODS = 8;
+
+    @Param({"50", "200"})
+    public int components;
+
+    @Param({"false", "true"})
+    public boolean planned;
+
+    private Path sources;
+    private Path classes;
+    private Path plan;
+    private URLClassLoader loader;
+
+    @Setup
+    public void setup() throws Exception {
+        sources = Files.createTempDirectory("startup-sources");
+        classes = Files.createTempDirectory("startup-classes");
+        compile();
+        plan = sources.resolve("context.plan");
+        try (URLClassLoader throwaway = loader()) {
+            start(throwaway);
+        }
+        loader = loader();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loader.close();
+    }
+
+    @Benchmark
+    public Context start() throws Exception {
+        return start(loader);
+    }
+
+    private Context start(ClassLoader loader) throws ClassNotFoundException {
+        ContextConfig config = new ContextConfig();
+        if (planned) config.plan(plan);
+        for (int i = 0; i < components; i++) {
+            Class<Object> type = (Class<Object>) loader.loadClass("startup.C" + i);
+            config.<Object, Object>bind(type, type);
+        }
+        return config.getContext();
+    }
+
+    private URLClassLoader loader() throws IOException {
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private void compile() throws IOException {
+        List<String> files = new ArrayList<>();
+        files.add(write("C0", "public class C0 {}"));
+        for (int i = 1; i < components; i++) {
+            for (int level = 0; level < 3; level++) {
+                String name = level == 2 ? "C" + i : "C" + i + "_" + level;
+                StringBuilder source = new StringBuilder("public class ").append(name);
+                if (level > 0) source.append(" extends C").append(i).append('_').append(level - 1);
+                source.append(" {\n");
+                source.append("  @jakarta.inject.Inject public C0 field").append(level).append(";\n");
+                source.append("  @jakarta.inject.Inject public void install").append(level).append("(C0 root) {}\n");
+                for (int m = 0; m < PLAIN_METHODS; m++)
+                    source.append("  public void plain").append(level).append('_').append(m).append("(int value) {}\n");
+                if (level == 2) source.append("  @jakarta.inject.Inject public ").append(name).append("(C").append(i - 1).append(" previous) {}\n");
+                files.add(write(name, source.append("}\n").toString()));
+            }
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString(), "-classpath", System.getProperty("java.class.path")));
+        arguments.addAll(files);
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0)
+            throw new IOException("failed to compile synthetic components");
+    }
+
+    private String write(String name, String body) throws IOException {
+        Path file = sources.resolve(name + ".java");
+        Files.writeString(file, "package startup;\n" + body);
+        return file.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Named;
+
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Diamond-heavy synthetic graphs: component i depends on i + 1 and i + 2, so every node is reached twice.
+class SyntheticGraph {
+    static Map<Component, ComponentProvider<?>> diamonds(int size) {
+        Map<Component, ComponentProvider<?>> components = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            List<ComponentRef<?>> dependencies = i + 2 < size ? List.of(ref(i + 1), ref(i + 2)) : i + 1 < size ? List.of(ref(i + 1)) : List.of();
+            components.put(new Component(Object.class, new NamedLiteral(String.valueOf(i))), new ComponentProvider<>() {
+                @Override
+                public Object get(Context context) {
+                    return new Object();
+                }
+
+                @Override
+                public List<ComponentRef<?>> getDependencies() {
+                    return dependencies;
+                }
+            });
+        }
+        return components;
+    }
+
+    private static ComponentRef<?> ref(int id) {
+        return ComponentRef.of(Object.class, new NamedLiteral(String.valueOf(id)));
+    }
+
+    record NamedLiteral(String value) implements Named {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Named named && value.equals(named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+}
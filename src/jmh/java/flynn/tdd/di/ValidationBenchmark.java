@@ -0,0 +1,32 @@
+package flynn.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int components;
+
+    private Map<Component, ComponentProvider<?>> graph;
+
+    @Setup
+    public void setup() {
+        graph = SyntheticGraph.diamonds(components);
+    }
+
+    @Benchmark
+    public FrozenContext validate() {
+        FrozenContext context = new FrozenContext(graph);
+        context.validate();
+        return context;
+    }
+}
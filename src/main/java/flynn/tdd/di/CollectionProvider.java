@@ -0,0 +1,78 @@
+package flynn.tdd.di;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// Builds a multibound List or Set from the member providers linked into an array. When every member is a
+// singleton the collection never changes, so it is built once per binding and handed out as is.
+class CollectionProvider implements ComponentProvider<Object> {
+    private final Class<?> container;
+    private final ComponentRef<?>[] members;
+
+    CollectionProvider(Class<?> container, ComponentRef<?>[] members) {
+        this.container = container;
+        this.members = members;
+    }
+
+    @Override
+    public Object get(Context context) {
+        if (!(context instanceof FrozenContext.Binding binding)) {
+            Object[] values = new Object[members.length];
+            for (int i = 0; i < values.length; i++) values[i] = context.get(members[i]).get();
+            return collect(values);
+        }
+        Linked current = binding.links(Linked::new);
+        Object collection = current.collection;
+        if (collection != null) return collection;
+        Object[] values = new Object[members.length];
+        for (int i = 0; i < values.length; i++) values[i] = current.providers[i].get(binding);
+        collection = collect(values);
+        if (current.singletons) current.collection = collection;
+        return collection;
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(FrozenContext.Binding binding) {
+        Linked current = binding.links(Linked::new);
+        if (current.collection != null) return CompletableFuture.completedFuture(current.collection);
+        CompletableFuture<?>[] values = new CompletableFuture<?>[members.length];
+        for (int i = 0; i < values.length; i++) values[i] = current.providers[i].getAsync(binding);
+        return CompletableFuture.allOf(values).thenApply(ready -> {
+            Object collection = collect(Arrays.stream(values).map(CompletableFuture::join).toArray());
+            if (current.singletons) current.collection = collection;
+            return collection;
+        });
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return List.of(members);
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        binding.links(Linked::new);
+    }
+
+    private Object collect(Object[] values) {
+        if (container == List.class) return List.of(values);
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(values)));
+    }
+
+    private final class Linked {
+        private final ComponentProvider<?>[] providers;
+        private final boolean singletons;
+        private volatile Object collection;
+
+        Linked(FrozenContext.Binding binding) {
+            this.providers = new ComponentProvider<?>[members.length];
+            boolean singletons = true;
+            for (int i = 0; i < providers.length; i++) {
+                providers[i] = binding.context().providerOf(members[i]);
+                singletons &= providers[i] instanceof FrozenContext.Binding member
+                        && MeteredProvider.unwrap(member.provider()) instanceof SingletonProvider<?>;
+            }
+            this.singletons = singletons;
+        }
+    }
+}
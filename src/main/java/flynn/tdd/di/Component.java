@@ -1,6 +1,68 @@
 package flynn.tdd.di;
 
 import java.lang.annotation.Annotation;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public record Component(Class<?> type, Annotation qualifier) {
+public final class Component {
+    // Only unqualified keys are interned, one per type in a ClassValue, which lets the type unload. Qualifiers
+    // may come from another class loader than the type, or take unbounded values, so interning them would pin
+    // loaders and grow forever; qualified keys are created per call and compare by value.
+    private static final ClassValue<Component> UNQUALIFIED = new ClassValue<>() {
+        @Override
+        protected Component computeValue(Class<?> type) {
+            return new Component(type, null, IDS.getAndIncrement());
+        }
+    };
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final Class<?> type;
+    private final Annotation qualifier;
+    private final int hash;
+    private final int id;
+
+    public Component(Class<?> type, Annotation qualifier) {
+        this(type, qualifier, qualifier == null ? UNQUALIFIED.get(type).id : -1);
+    }
+
+    private Component(Class<?> type, Annotation qualifier, int id) {
+        this.type = type;
+        this.qualifier = qualifier;
+        this.hash = 31 * type.hashCode() + Objects.hashCode(qualifier);
+        this.id = id;
+    }
+
+    // The shared instance for an unqualified type, so the common lookups compare by identity; a new key otherwise.
+    static Component of(Class<?> type, Annotation qualifier) {
+        return qualifier == null ? UNQUALIFIED.get(type) : new Component(type, qualifier);
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    public Annotation qualifier() {
+        return qualifier;
+    }
+
+    // Dense over the unqualified keys interned so far, so contexts can index their slots by it; -1 if qualified.
+    int id() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof Component that && hash == that.hash && type == that.type && Objects.equals(qualifier, that.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "Component[type=" + type + ", qualifier=" + qualifier + "]";
+    }
 }
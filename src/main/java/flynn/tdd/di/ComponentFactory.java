@@ -0,0 +1,11 @@
+package flynn.tdd.di;
+
+import java.util.List;
+
+/**
+ * Build-time generated replacement for {@link InjectionProvider} introspection. Implementations are named
+ * {@code <Component>_Factory} (nested names joined by {@code _}) in the component's package.
+ */
+public interface ComponentFactory<T> extends Instantiator<T> {
+    List<ComponentRef<?>> getDependencies();
+}
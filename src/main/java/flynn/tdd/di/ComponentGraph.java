@@ -0,0 +1,137 @@
+package flynn.tdd.di;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+// Dependency graph over dense integer ids. Only direct dependencies are edges, since a Provider breaks a
+// construction cycle. Dependencies an ancestor context binds are not edges either: the
+// ancestor never depends back on a child.
+class ComponentGraph {
+    private final Component[] components;
+    private final int[][] dependencies;
+    private final int[] slots;
+
+    ComponentGraph(Component[] components, ComponentProvider<?>[] providers, Map<Component, Integer> ids) {
+        this(components, providers, ids, component -> false);
+    }
+
+    ComponentGraph(Component[] components, ComponentProvider<?>[] providers, Map<Component, Integer> ids,
+                   Predicate<Component> inherited) {
+        this.components = components;
+        this.dependencies = new int[components.length][];
+        for (int id = 0; id < components.length; id++) {
+            List<ComponentRef<?>> refs = providers[id].getDependencies();
+            int[] edges = new int[refs.size()];
+            int count = 0;
+            for (ComponentRef<?> ref : refs) {
+                Integer dependency = ids.get(ref.key());
+                if (dependency == null && (ref.isOptional() || inherited.test(ref.key()))) continue;
+                if (dependency == null) throw new DependencyNotFoundException(components[id], ref.key());
+                if (ref.isDirect()) edges[count++] = dependency;
+            }
+            dependencies[id] = count == edges.length ? edges : Arrays.copyOf(edges, count);
+        }
+        this.slots = null;
+    }
+
+    private ComponentGraph(Component[] components, int[][] dependencies, int[] slots) {
+        this.components = components;
+        this.dependencies = dependencies;
+        this.slots = slots;
+    }
+
+    // The subgraph reachable from root, Provider edges included, renumbered densely. Components already
+    // checked are left out: a cycle through one of them would have made the new ones reachable from it.
+    static ComponentGraph reachableFrom(int root, Component[] components, ComponentProvider<?>[] providers,
+                                        Map<Component, Integer> ids, Predicate<Component> inherited, IntPredicate checked) {
+        Map<Integer, Integer> local = new HashMap<>();
+        List<Integer> slots = new ArrayList<>();
+        List<int[]> dependencies = new ArrayList<>();
+        local.put(root, 0);
+        slots.add(root);
+        for (int next = 0; next < slots.size(); next++) {
+            int slot = slots.get(next);
+            List<ComponentRef<?>> refs = providers[slot].getDependencies();
+            int[] edges = new int[refs.size()];
+            int count = 0;
+            for (ComponentRef<?> ref : refs) {
+                Integer dependency = ids.get(ref.key());
+                if (dependency == null && (ref.isOptional() || inherited.test(ref.key()))) continue;
+                if (dependency == null) throw new DependencyNotFoundException(components[slot], ref.key());
+                if (checked.test(dependency)) continue;
+                Integer id = local.get(dependency);
+                if (id == null) {
+                    local.put(dependency, id = slots.size());
+                    slots.add(dependency);
+                }
+                if (ref.isDirect()) edges[count++] = id;
+            }
+            dependencies.add(count == edges.length ? edges : Arrays.copyOf(edges, count));
+        }
+        return new ComponentGraph(slots.stream().map(slot -> components[slot]).toArray(Component[]::new),
+                dependencies.toArray(int[][]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Slots of the components in a graph built by reachableFrom.
+    int[] slots() {
+        return slots;
+    }
+
+    // Iterative Tarjan: every component and edge is visited once, and deep chains do not grow the call stack.
+    void checkCycles() {
+        int size = components.length;
+        int[] index = new int[size];
+        int[] low = new int[size];
+        int[] cursor = new int[size];
+        int[] frames = new int[size];
+        int[] stack = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int top = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1) continue;
+            int depth = 0;
+            frames[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[top++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int node = frames[depth - 1];
+                if (cursor[node] < dependencies[node].length) {
+                    int dependency = dependencies[node][cursor[node]++];
+                    if (index[dependency] == -1) {
+                        frames[depth++] = dependency;
+                        index[dependency] = low[dependency] = counter++;
+                        stack[top++] = dependency;
+                        onStack[dependency] = true;
+                    } else if (onStack[dependency]) {
+                        low[node] = Math.min(low[node], index[dependency]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) low[frames[depth - 1]] = Math.min(low[frames[depth - 1]], low[node]);
+                if (low[node] != index[node]) continue;
+
+                List<Component> cycle = new ArrayList<>();
+                int member;
+                do {
+                    member = stack[--top];
+                    onStack[member] = false;
+                    cycle.add(components[member]);
+                } while (member != node);
+                if (cycle.size() > 1 || dependsOn(node, node)) throw new CyclicDependenciesFoundException(cycle);
+            }
+        }
+    }
+
+    private boolean dependsOn(int node, int dependency) {
+        for (int edge : dependencies[node]) if (edge == dependency) return true;
+        return false;
+    }
+}
@@ -0,0 +1,8 @@
+package flynn.tdd.di;
+
+/**
+ * How often a binding was resolved, how many instances it constructed, and how many resolutions a scope
+ * answered from its cache.
+ */
+public record ComponentMetrics(Component component, long resolutions, long instances, long scopeHits) {
+}
@@ -1,6 +1,7 @@
 package flynn.tdd.di;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 interface ComponentProvider<T> {
     T get(Context context);
@@ -8,4 +9,19 @@ interface ComponentProvider<T> {
     default List<ComponentRef<?>> getDependencies() {
         return List.of();
     }
+
+    // Links ahead of first use whatever the provider needs from the context it is bound in; wrappers pass the
+    // binding on to the provider they wrap.
+    default void link(FrozenContext.Binding binding) {
+    }
+
+    // The same binding without this provider's instances, for a child context that re-creates it. Links live in
+    // the binding, so a provider holding no instances is its own fork.
+    default ComponentProvider<T> fork() {
+        return this;
+    }
+
+    default CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        return CompletableFuture.supplyAsync(() -> get(binding), binding.executor());
+    }
 }
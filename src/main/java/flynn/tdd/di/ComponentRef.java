@@ -4,6 +4,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Objects;
+import java.util.Optional;
 
 public class ComponentRef<ComponentType> {
     public static <ComponentType> ComponentRef<ComponentType> of(Class<ComponentType> component) {
@@ -23,8 +24,15 @@ public class ComponentRef<ComponentType> {
         return new ComponentRef(type, qualifier);
     }
 
+    public static ComponentRef of(Class<?> container, Class<?> component, Annotation qualifier) {
+        ComponentRef ref = new ComponentRef(component, qualifier);
+        ref.container = container;
+        return ref;
+    }
+
     private Type container;
     private Component component;
+    private Component key;
 
     ComponentRef(Type type, Annotation qualifier) {
         init(type, qualifier);
@@ -43,9 +51,9 @@ public class ComponentRef<ComponentType> {
     private void init(Type type, Annotation qualifier) {
         if (type instanceof ParameterizedType container) {
             this.container = container.getRawType();
-            this.component = new Component((Class<ComponentType>) container.getActualTypeArguments()[0], qualifier);
+            this.component = Component.of((Class<ComponentType>) container.getActualTypeArguments()[0], qualifier);
         } else {
-            this.component = new Component(((Class<ComponentType>) type), qualifier);
+            this.component = Component.of(((Class<ComponentType>) type), qualifier);
         }
     }
 
@@ -61,6 +69,24 @@ public class ComponentRef<ComponentType> {
         return component;
     }
 
+    // The bound component this ref resolves to: the component itself, or for a List or Set its multibinding.
+    Component key() {
+        Component current = key;
+        if (current == null)
+            key = current = Multibinding.isCollection(container) ? Multibinding.collection(component, (Class<?>) container) : component;
+        return current;
+    }
+
+    // Whether resolving this ref constructs what it refers to, rather than handing out a Provider for it.
+    boolean isDirect() {
+        return container == null || container == Optional.class || Multibinding.isCollection(container);
+    }
+
+    // Whether this ref may go unbound, resolving to an empty Optional.
+    boolean isOptional() {
+        return container == Optional.class;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
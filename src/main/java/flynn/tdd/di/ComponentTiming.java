@@ -0,0 +1,10 @@
+package flynn.tdd.di;
+
+import java.time.Duration;
+
+/**
+ * Constructions of one component so far: self time excludes the construction of its dependencies, inclusive
+ * time counts them too.
+ */
+public record ComponentTiming(Component component, long constructions, Duration self, Duration inclusive) {
+}
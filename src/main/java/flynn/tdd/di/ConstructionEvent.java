@@ -0,0 +1,17 @@
+package flynn.tdd.di;
+
+import jdk.jfr.*;
+
+@Name("flynn.tdd.di.Construction")
+@Label("Component Construction")
+@Category("Dependency Injection")
+@Description("Construction of a component, including its dependencies")
+@StackTrace(false)
+class ConstructionEvent extends Event {
+    @Label("Component")
+    String component;
+
+    @Label("Self Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long self;
+}
@@ -0,0 +1,133 @@
+package flynn.tdd.di;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-component construction counts and times, collected when passed to {@link ContextConfig#profile}. Each
+ * construction is also emitted as a {@code flynn.tdd.di.Construction} Flight Recorder event.
+ */
+public final class ConstructionProfile {
+    private final Map<Component, Stats> stats = new ConcurrentHashMap<>();
+    private final ThreadLocal<Frame> current = new ThreadLocal<>();
+
+    /**
+     * All profiled components, slowest self time first.
+     */
+    public List<ComponentTiming> timings() {
+        return stats.entrySet().stream().map(e -> e.getValue().timing(e.getKey()))
+                .sorted(Comparator.comparing(ComponentTiming::self).reversed()).toList();
+    }
+
+    public List<ComponentTiming> slowest(int limit) {
+        return timings().stream().limit(limit).toList();
+    }
+
+    /**
+     * The chain of nested constructions that took longest: starting from the slowest construction overall,
+     * each step is the dependency that took longest to construct within its parent's slowest construction.
+     */
+    public List<Component> criticalPath() {
+        List<Component> path = new ArrayList<>();
+        Component next = stats.entrySet().stream().max(Comparator.comparingLong(e -> e.getValue().slowest.inclusive()))
+                .map(Map.Entry::getKey).orElse(null);
+        Set<Component> visited = new HashSet<>();
+        while (next != null && visited.add(next)) {
+            path.add(next);
+            Stats step = stats.get(next);
+            next = step == null ? null : step.slowest.heaviest();
+        }
+        return path;
+    }
+
+    /**
+     * A plain-text startup report: the given number of slowest components, then the critical path.
+     */
+    public String report(int limit) {
+        StringBuilder report = new StringBuilder("Slowest components (self / inclusive / constructions):\n");
+        for (ComponentTiming timing : slowest(limit))
+            report.append(String.format("  %-60s %8.3f ms %8.3f ms %6d%n", timing.component(), millis(timing.self()),
+                    millis(timing.inclusive()), timing.constructions()));
+        report.append("Critical path:\n");
+        for (Component component : criticalPath()) report.append("  -> ").append(component).append('\n');
+        return report.toString();
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    Frame enter(Component component) {
+        Frame frame = new Frame(component, current.get());
+        current.set(frame);
+        frame.event.begin();
+        return frame;
+    }
+
+    // Self time is what remains once the inclusive times of nested constructions on this thread are taken out.
+    void exit(Frame frame, long elapsed) {
+        if (frame.parent == null) current.remove();
+        else current.set(frame.parent);
+        if (frame.parent != null) frame.parent.child(frame.component, elapsed);
+
+        long self = elapsed - frame.children;
+        stats.computeIfAbsent(frame.component, c -> new Stats()).record(self, elapsed, frame.heaviest);
+
+        ConstructionEvent event = frame.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.component = frame.component.toString();
+            event.self = self;
+            event.commit();
+        }
+    }
+
+    static final class Frame {
+        private final Component component;
+        private final Frame parent;
+        private final ConstructionEvent event = new ConstructionEvent();
+        private long children;
+        private Component heaviest;
+        private long heaviestTime = -1;
+
+        private Frame(Component component, Frame parent) {
+            this.component = component;
+            this.parent = parent;
+        }
+
+        private void child(Component component, long elapsed) {
+            children += elapsed;
+            if (elapsed > heaviestTime) {
+                heaviestTime = elapsed;
+                heaviest = component;
+            }
+        }
+    }
+
+    private record Slowest(long inclusive, Component heaviest) {
+    }
+
+    private static final class Stats {
+        private final LongAdder constructions = new LongAdder();
+        private final LongAdder self = new LongAdder();
+        private final LongAdder inclusive = new LongAdder();
+        private volatile Slowest slowest = new Slowest(-1, null);
+
+        void record(long self, long inclusive, Component heaviest) {
+            constructions.increment();
+            this.self.add(self);
+            this.inclusive.add(inclusive);
+            if (inclusive > slowest.inclusive()) {
+                synchronized (this) {
+                    if (inclusive > slowest.inclusive()) slowest = new Slowest(inclusive, heaviest);
+                }
+            }
+        }
+
+        ComponentTiming timing(Component component) {
+            return new ComponentTiming(component, constructions.sum(), Duration.ofNanos(self.sum()), Duration.ofNanos(inclusive.sum()));
+        }
+    }
+}
@@ -1,9 +1,45 @@
 package flynn.tdd.di;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface Context {
 
     <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref);
 
+    /**
+     * Same as {@link #get(ComponentRef)} but returns the component itself, throwing
+     * {@link java.util.NoSuchElementException} when it cannot be resolved.
+     */
+    default <ComponentType> ComponentType getRequired(ComponentRef<ComponentType> ref) {
+        return get(ref).orElseThrow();
+    }
+
+    /**
+     * Same as {@link #get(ComponentRef)} but returns {@code null} when the component cannot be resolved.
+     */
+    default <ComponentType> ComponentType getNullable(ComponentRef<ComponentType> ref) {
+        return get(ref).orElse(null);
+    }
+
+    /**
+     * Resolves the component without blocking the caller. Contexts built by {@link ContextConfig} construct
+     * independent dependencies concurrently on the configured executor; the future completes exceptionally
+     * with {@link java.util.NoSuchElementException} when the component cannot be resolved.
+     */
+    default <ComponentType> CompletableFuture<ComponentType> getAsync(ComponentRef<ComponentType> ref) {
+        try {
+            return CompletableFuture.completedFuture(getRequired(ref));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Resolution counters of this context; {@link ContextMetrics#NONE} unless metrics were enabled.
+     */
+    default ContextMetrics metrics() {
+        return ContextMetrics.NONE;
+    }
+
 }
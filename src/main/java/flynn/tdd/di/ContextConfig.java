@@ -1,25 +1,58 @@
 package flynn.tdd.di;
 
-import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
 
 import java.lang.annotation.Annotation;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class ContextConfig {
+    private final FrozenContext parent;
     private Map<Component, ComponentProvider<?>> components = new HashMap<>();
+    private Map<Component, List<ComponentProvider<?>>> multibindings = new HashMap<>();
     private Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
+    private InjectionMode injection = InjectionMode.defaultMode();
+    private boolean lazy;
+    private ConstructionProfile profile;
+    private Metrics metrics;
+    private ResolutionPlan plan;
+    private Executor async = ForkJoinPool.commonPool();
+    private Executor eager;
+    private Consumer<EagerInitialization> eagerReport = report -> {
+    };
 
     public ContextConfig() {
+        this(null);
+    }
+
+    private ContextConfig(FrozenContext parent) {
+        this.parent = parent;
         scope(Singleton.class, SingletonProvider::new);
+        scope(RequestScoped.class, RequestScopedProvider::new);
+    }
+
+    // Bindings made on the returned config override the parent's in the child context it creates; the parent's
+    // other providers and singletons are shared, except those depending on an override. The config starts with
+    // the parent's executor, injection mode and laziness, and parent metrics, if enabled, keep counting.
+    public static ContextConfig childOf(Context parent) {
+        if (!(parent instanceof FrozenContext frozen)) throw new IllegalArgumentException("Parent must be created by ContextConfig");
+        ContextConfig config = new ContextConfig(frozen);
+        config.async = frozen.executor();
+        config.injection = frozen.mode();
+        config.lazy = frozen.validatesOnDemand();
+        if (frozen.metrics() instanceof Metrics metrics) config.metrics = metrics;
+        return config;
     }
 
     public <Type> void bind(Class<Type> type, Type instance) {
-        components.put(new Component(type, null), (ComponentProvider<Type>) context -> instance);
+        components.put(Component.of(type, null), (ComponentProvider<Type>) context -> instance);
     }
 
     public <Type> void bind(Class<Type> type, Type instance, Annotation... qualifiers) {
@@ -27,7 +60,7 @@ public class ContextConfig {
             throw new IllegalComponentException();
         }
         for (Annotation qualifier : qualifiers)
-            components.put(new Component(type, qualifier), context -> instance);
+            components.put(Component.of(type, qualifier), context -> instance);
     }
 
     public <Type, Implementation extends Type>
@@ -42,20 +75,35 @@ public class ContextConfig {
         if (annotationGroups.containsKey(Illegal.class))
             throw new IllegalComponentException();
 
-        bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()),
-                createScopeProvider(implementation, annotationGroups.getOrDefault(Scope.class, List.of())));
+        List<Annotation> qualifiers = annotationGroups.getOrDefault(Qualifier.class, List.of());
+        bind(type, qualifiers, createScopeProvider(Component.of(type, qualifiers.stream().findFirst().orElse(null)),
+                implementation, annotationGroups.getOrDefault(Scope.class, List.of())));
+    }
+
+    // Adds instance to the List<Type> and Set<Type> of every multibound Type, in binding order. In a child
+    // context the members follow those multibound in its parent.
+    public <Type> void multibind(Class<Type> type, Type instance) {
+        multibindings.computeIfAbsent(Component.of(type, null), c -> new ArrayList<>()).add(context -> instance);
     }
 
-    private <Type> ComponentProvider<?> createScopeProvider(Class<Type> implementation, List<Annotation> scopes) {
+    public <Type, Implementation extends Type>
+    void multibind(Class<Type> type, Class<Implementation> implementation) {
+        multibindings.computeIfAbsent(Component.of(type, null), c -> new ArrayList<>()).add(createScopeProvider(Component.of(implementation, null), implementation, List.of()));
+    }
+
+    private <Type> ComponentProvider<?> createScopeProvider(Component component, Class<Type> implementation, List<Annotation> scopes) {
         if (scopes.size() > 1) throw new IllegalComponentException();
-        ComponentProvider<?> injectionProvider = new InjectionProvider<>(implementation);
+        ComponentProvider<Type> constructor = lazy ? new LazyInjectionProvider<>(implementation, injection)
+                : plan != null ? InjectionProvider.of(implementation, injection, plan) : InjectionProvider.of(implementation, injection);
+        if (metrics != null) constructor = metrics.instances(component, constructor, !scopes.isEmpty() || scopeFrom(implementation).isPresent());
+        ComponentProvider<?> injectionProvider = profile == null ? constructor : new TimedProvider<>(component, constructor, profile);
         return scopes.stream().findFirst().or(() -> scopeFrom(implementation)).<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider)).orElse(injectionProvider);
     }
 
     private <Type> void bind(Class<Type> type, List<Annotation> qualifiers, ComponentProvider<?> provider) {
-        if (qualifiers.isEmpty()) components.put(new Component(type, null), provider);
+        if (qualifiers.isEmpty()) components.put(Component.of(type, null), provider);
         for (Annotation qualifier : qualifiers)
-            components.put(new Component(type, qualifier), provider);
+            components.put(Component.of(type, qualifier), provider);
     }
 
     private <Type> Optional<Annotation> scopeFrom(Class<Type> implementation) {
@@ -80,40 +128,62 @@ public class ContextConfig {
         scopes.put(scope, provider);
     }
 
-    public Context getContext() {
-        components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
+    public void injection(InjectionMode mode) {
+        this.injection = mode;
+    }
 
-        return new Context() {
+    // Components bound after this are introspected, and every component validated, only when first requested.
+    public void lazy() {
+        this.lazy = true;
+    }
 
-            @Override
-            public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
-                if (ref.isContainer()) {
-                    if (ref.getContainer() != Provider.class) return Optional.empty();
+    // Constructions of components bound after this are timed into profile and emitted as JFR events.
+    public void profile(ConstructionProfile profile) {
+        this.profile = profile;
+    }
 
-                    return (Optional<ComponentType>) Optional.ofNullable(getProvider(ref))
-                            .map(provider -> (Provider<Object>) () -> provider.get(this));
-                }
-                return Optional.ofNullable(getProvider(ref)).map(provider -> ((ComponentType) provider.get(this)));
-            }
+    // Resolutions and constructions of components bound after this are counted, see Context.metrics().
+    public void metrics() {
+        this.metrics = new Metrics();
+    }
 
-        };
+    // Components bound after this take their injection points from file, recorded by an earlier run on the same
+    // class path, and getContext() skips validating a graph the file holds as valid. What the file lacks is
+    // recorded by getContext(); a stale or unreadable file is ignored and rewritten.
+    public void plan(Path file) {
+        this.plan = ResolutionPlan.open(file);
     }
 
-    private <ComponentType> ComponentProvider<?> getProvider(ComponentRef<ComponentType> ref) {
-        return components.get(ref.component());
+    public void async(Executor executor) {
+        this.async = executor;
     }
 
-    private void checkDependencies(Component component, Stack<Component> visiting) {
-        for (ComponentRef dependency : components.get(component).getDependencies()) {
-            if (!components.containsKey(dependency.component()))
-                throw new DependencyNotFoundException(component, dependency.component());
-            if (!dependency.isContainer()) {
-                if (visiting.contains(dependency.component())) throw new CyclicDependenciesFoundException(visiting);
-                visiting.push(dependency.component());
-                checkDependencies(dependency.component(), visiting);
-                visiting.pop();
-            }
+    public void eager(Executor executor) {
+        eager(executor, report -> {
+        });
+    }
+
+    public void eager(Executor executor, Consumer<EagerInitialization> report) {
+        this.eager = executor;
+        this.eagerReport = report;
+    }
+
+    public Context getContext() {
+        Map<Component, ComponentProvider<?>> bindings = new HashMap<>(components);
+        if (metrics != null) bindings.replaceAll(metrics::resolutions);
+        multibindings.forEach((element, members) -> Multibinding.bind(bindings, element, members, parent));
+        FrozenContext context = parent == null ? new FrozenContext(bindings, async, injection) : parent.child(bindings, async, injection);
+        if (metrics != null) context.metrics(metrics);
+        if (lazy && eager == null) {
+            context.validateOnDemand();
+            return context;
         }
+        if (plan != null && parent == null) plan.validate(bindings, context::validate);
+        else context.validate();
+        if (plan != null) plan.save();
+        context.link();
+        if (eager != null) eagerReport.accept(new EagerInitializer(context, eager).initialize());
+        return context;
     }
 
 }
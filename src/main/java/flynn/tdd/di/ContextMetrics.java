@@ -0,0 +1,29 @@
+package flynn.tdd.di;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Resolution counters of a context, collected when enabled with {@link ContextConfig#metrics()}; otherwise
+ * {@link #NONE}, which counts nothing and costs nothing.
+ */
+public interface ContextMetrics {
+    ContextMetrics NONE = List::of;
+
+    List<ComponentMetrics> components();
+
+    default Optional<ComponentMetrics> component(Component component) {
+        return components().stream().filter(m -> m.component().equals(component)).findFirst();
+    }
+
+    /**
+     * Exposes these metrics as a {@link ContextMetricsMXBean} under the given object name.
+     */
+    default ObjectName register(MBeanServer server, String name) throws JMException {
+        return server.registerMBean(new StandardMBean(new MetricsMXBean(this), ContextMetricsMXBean.class, true), new ObjectName(name)).getObjectName();
+    }
+}
@@ -0,0 +1,16 @@
+package flynn.tdd.di;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ContextMetrics}, keyed by component.
+ */
+public interface ContextMetricsMXBean {
+    Map<String, Long> getResolutions();
+
+    Map<String, Long> getInstances();
+
+    Map<String, Long> getScopeHits();
+
+    long getTotalResolutions();
+}
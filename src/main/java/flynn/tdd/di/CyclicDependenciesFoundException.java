@@ -1,13 +1,13 @@
 package flynn.tdd.di;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.Stack;
 
 public class CyclicDependenciesFoundException extends RuntimeException {
     private Set<Component> components = new HashSet<>();
 
-    public CyclicDependenciesFoundException(Stack<Component> visiting) {
+    public CyclicDependenciesFoundException(Collection<Component> visiting) {
         components.addAll(visiting);
     }
 
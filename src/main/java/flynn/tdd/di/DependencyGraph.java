@@ -0,0 +1,232 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Provider;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The components of a context and the dependencies between them, as declared by their providers. Exports to
+ * Graphviz DOT and JSON, and with measured construction costs tells how much of singleton initialization can
+ * run in parallel.
+ */
+public final class DependencyGraph {
+    public enum Lifetime {SINGLETON, REQUEST, PROTOTYPE, COLLECTION, OTHER}
+
+    /**
+     * DIRECT dependencies are constructed with their dependent; PROVIDER ones (Provider and Supplier) only when
+     * asked for; OPTIONAL and COLLECTION ones are constructed with their dependent, when bound.
+     */
+    public enum Kind {DIRECT, PROVIDER, OPTIONAL, COLLECTION}
+
+    public record Node(Component component, Lifetime lifetime) {
+    }
+
+    public record Edge(Component from, Component to, Kind kind) {
+    }
+
+    public record StartupAnalysis(List<Component> criticalPath, Duration criticalPathTime, Duration totalTime, int width) {
+        /**
+         * The speed-up over sequential initialization that unlimited threads could reach at best.
+         */
+        public double parallelism() {
+            return criticalPathTime.isZero() ? 1 : (double) totalTime.toNanos() / criticalPathTime.toNanos();
+        }
+    }
+
+    private final List<Node> nodes;
+    private final List<Edge> edges;
+
+    private DependencyGraph(List<Node> nodes, List<Edge> edges) {
+        this.nodes = nodes;
+        this.edges = edges;
+    }
+
+    public static DependencyGraph of(Context context) {
+        if (context instanceof VersionedContext versioned) context = versioned.snapshot();
+        if (!(context instanceof FrozenContext frozen)) throw new IllegalArgumentException("Context must be created by ContextConfig");
+        Map<Component, ComponentProvider<?>> bindings = frozen.bindings();
+        List<Node> nodes = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        bindings.forEach((component, provider) -> {
+            nodes.add(new Node(component, lifetimeOf(provider)));
+            for (ComponentRef<?> dependency : provider.getDependencies())
+                if (bindings.containsKey(dependency.key())) edges.add(new Edge(component, dependency.key(), kindOf(dependency)));
+        });
+        return new DependencyGraph(List.copyOf(nodes), List.copyOf(edges));
+    }
+
+    private static Lifetime lifetimeOf(ComponentProvider<?> provider) {
+        ComponentProvider<?> bound = MeteredProvider.unwrap(provider);
+        if (bound instanceof SingletonProvider<?>) return Lifetime.SINGLETON;
+        if (bound instanceof RequestScopedProvider<?>) return Lifetime.REQUEST;
+        if (bound instanceof CollectionProvider) return Lifetime.COLLECTION;
+        if (bound instanceof InjectionProvider<?> || bound instanceof LazyInjectionProvider<?> || bound instanceof TimedProvider<?>)
+            return Lifetime.PROTOTYPE;
+        return Lifetime.OTHER;
+    }
+
+    private static Kind kindOf(ComponentRef<?> dependency) {
+        if (dependency.isOptional()) return Kind.OPTIONAL;
+        if (!dependency.isContainer()) return Kind.DIRECT;
+        if (dependency.getContainer() == Provider.class || dependency.getContainer() == Supplier.class) return Kind.PROVIDER;
+        return Kind.COLLECTION;
+    }
+
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    /**
+     * Critical path and width of singleton initialization, costing each component by its average self time in
+     * the profile; components it never constructed cost nothing.
+     */
+    public StartupAnalysis analyze(ConstructionProfile profile) {
+        Map<Component, Duration> costs = new HashMap<>();
+        for (ComponentTiming timing : profile.timings())
+            costs.put(timing.component(), timing.self().dividedBy(Math.max(1, timing.constructions())));
+        return analyze(component -> costs.getOrDefault(component, Duration.ZERO));
+    }
+
+    /**
+     * Singletons wait for the nearest singletons they reach through constructed-with dependencies, and each
+     * costs its own construction plus that of the non-singletons it builds on the way. The critical path is the
+     * costliest chain of waits; the width is the most singletons that are ready to start at the same depth.
+     */
+    public StartupAnalysis analyze(Function<Component, Duration> cost) {
+        Map<Component, Node> byComponent = new HashMap<>();
+        for (Node node : nodes) byComponent.put(node.component(), node);
+        Map<Component, List<Component>> constructed = new HashMap<>();
+        for (Edge edge : edges)
+            if (edge.kind() != Kind.PROVIDER) constructed.computeIfAbsent(edge.from(), c -> new ArrayList<>()).add(edge.to());
+
+        Map<Component, Long> own = new LinkedHashMap<>();
+        Map<Component, Set<Component>> waits = new HashMap<>();
+        for (Node node : nodes) {
+            if (node.lifetime() != Lifetime.SINGLETON) continue;
+            long nanos = cost.apply(node.component()).toNanos();
+            Set<Component> required = new LinkedHashSet<>();
+            Set<Component> visited = new HashSet<>(Set.of(node.component()));
+            Deque<Component> pending = new ArrayDeque<>(constructed.getOrDefault(node.component(), List.of()));
+            while (!pending.isEmpty()) {
+                Component next = pending.pop();
+                if (!visited.add(next)) continue;
+                if (byComponent.get(next).lifetime() == Lifetime.SINGLETON) {
+                    required.add(next);
+                    continue;
+                }
+                nanos += cost.apply(next).toNanos();
+                pending.addAll(constructed.getOrDefault(next, List.of()));
+            }
+            own.put(node.component(), nanos);
+            waits.put(node.component(), required);
+        }
+
+        Map<Component, Long> finish = new HashMap<>();
+        Map<Component, Component> after = new HashMap<>();
+        Map<Component, Integer> depth = new HashMap<>();
+        for (Component singleton : topologicalOrder(waits)) {
+            long start = 0;
+            int level = 0;
+            for (Component required : waits.get(singleton)) {
+                if (!after.containsKey(singleton) || finish.get(required) > start) {
+                    after.put(singleton, required);
+                    start = finish.get(required);
+                }
+                level = Math.max(level, depth.get(required) + 1);
+            }
+            finish.put(singleton, start + own.get(singleton));
+            depth.put(singleton, level);
+        }
+
+        LinkedList<Component> path = new LinkedList<>();
+        Component last = finish.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+        for (Component step = last; step != null; step = after.get(step)) path.addFirst(step);
+        Map<Integer, Integer> levels = new HashMap<>();
+        depth.values().forEach(level -> levels.merge(level, 1, Integer::sum));
+        return new StartupAnalysis(List.copyOf(path), Duration.ofNanos(last == null ? 0 : finish.get(last)),
+                Duration.ofNanos(own.values().stream().mapToLong(Long::longValue).sum()),
+                levels.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+    }
+
+    private static List<Component> topologicalOrder(Map<Component, Set<Component>> waits) {
+        List<Component> order = new ArrayList<>();
+        Map<Component, Integer> remaining = new HashMap<>();
+        Map<Component, List<Component>> dependents = new HashMap<>();
+        Deque<Component> ready = new ArrayDeque<>();
+        waits.forEach((singleton, required) -> {
+            remaining.put(singleton, required.size());
+            for (Component prerequisite : required) dependents.computeIfAbsent(prerequisite, c -> new ArrayList<>()).add(singleton);
+            if (required.isEmpty()) ready.add(singleton);
+        });
+        while (!ready.isEmpty()) {
+            Component next = ready.poll();
+            order.add(next);
+            for (Component dependent : dependents.getOrDefault(next, List.of()))
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+        }
+        return order;
+    }
+
+    public String toDot() {
+        Map<Component, Integer> ids = ids();
+        StringBuilder dot = new StringBuilder("digraph components {\n    node [shape=box];\n");
+        for (Node node : nodes)
+            dot.append("    n").append(ids.get(node.component())).append(" [label=\"")
+                    .append(escape(label(node.component()))).append("\\n").append(node.lifetime().name().toLowerCase()).append("\"];\n");
+        for (Edge edge : edges) {
+            dot.append("    n").append(ids.get(edge.from())).append(" -> n").append(ids.get(edge.to()));
+            if (edge.kind() != Kind.DIRECT)
+                dot.append(" [label=\"").append(edge.kind().name().toLowerCase()).append('"')
+                        .append(edge.kind() == Kind.PROVIDER ? ", style=dashed" : "").append(']');
+            dot.append(";\n");
+        }
+        return dot.append("}\n").toString();
+    }
+
+    public String toJson() {
+        Map<Component, Integer> ids = ids();
+        StringJoiner nodes = new StringJoiner(",", "[", "]");
+        for (Node node : this.nodes)
+            nodes.add("{\"id\":" + ids.get(node.component()) + ",\"type\":\"" + escape(node.component().type().getName())
+                    + "\",\"qualifier\":" + (node.component().qualifier() == null ? "null" : "\"" + escape(node.component().qualifier().toString()) + "\"")
+                    + ",\"lifetime\":\"" + node.lifetime() + "\"}");
+        StringJoiner edges = new StringJoiner(",", "[", "]");
+        for (Edge edge : this.edges)
+            edges.add("{\"from\":" + ids.get(edge.from()) + ",\"to\":" + ids.get(edge.to()) + ",\"kind\":\"" + edge.kind() + "\"}");
+        return "{\"nodes\":" + nodes + ",\"edges\":" + edges + "}";
+    }
+
+    private Map<Component, Integer> ids() {
+        Map<Component, Integer> ids = new HashMap<>();
+        for (Node node : nodes) ids.put(node.component(), ids.size());
+        return ids;
+    }
+
+    private static String label(Component component) {
+        String name = component.type().getSimpleName();
+        return component.qualifier() == null ? name : component.qualifier() + " " + name;
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                default -> {
+                    if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+                    else escaped.append(c);
+                }
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package flynn.tdd.di;
+
+import java.time.Duration;
+
+/**
+ * Outcome of eager singleton initialization: how long the concurrent run took, and how long the same
+ * constructions would have taken one after another.
+ */
+public record EagerInitialization(int singletons, Duration wallClock, Duration sequential) {
+    public Duration saved() {
+        return sequential.minus(wallClock);
+    }
+}
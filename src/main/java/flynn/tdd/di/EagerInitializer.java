@@ -0,0 +1,98 @@
+package flynn.tdd.di;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Builds every singleton on the executor as soon as the singletons it (transitively) depends on are built.
+class EagerInitializer {
+    private final FrozenContext context;
+    private final Executor executor;
+
+    EagerInitializer(FrozenContext context, Executor executor) {
+        this.context = context;
+        this.executor = executor;
+    }
+
+    EagerInitialization initialize() {
+        Map<ComponentProvider<?>, FrozenContext.Binding> owners = new LinkedHashMap<>();
+        for (int slot = 0; slot < context.size(); slot++)
+            if (MeteredProvider.unwrap(context.binding(slot).provider()) instanceof SingletonProvider<?> provider)
+                owners.putIfAbsent(provider, context.binding(slot));
+        // Ancestor singletons found on the way are prerequisites too, built against the ancestor owning them.
+        Map<ComponentProvider<?>, Set<ComponentProvider<?>>> prerequisites = new LinkedHashMap<>();
+        Deque<ComponentProvider<?>> singletons = new ArrayDeque<>(owners.keySet());
+        while (!singletons.isEmpty()) {
+            ComponentProvider<?> singleton = singletons.poll();
+            if (prerequisites.containsKey(singleton)) continue;
+            Set<ComponentProvider<?>> required = singletonsRequiredBy(owners.get(singleton), owners);
+            prerequisites.put(singleton, required);
+            singletons.addAll(required);
+        }
+
+        AtomicLong sequential = new AtomicLong();
+        Map<ComponentProvider<?>, CompletableFuture<Void>> initialized = new HashMap<>();
+        long start = System.nanoTime();
+        for (ComponentProvider<?> singleton : topologicalOrder(prerequisites)) {
+            CompletableFuture<?>[] required = prerequisites.get(singleton).stream().map(initialized::get).toArray(CompletableFuture<?>[]::new);
+            initialized.put(singleton, CompletableFuture.allOf(required).thenRunAsync(() -> {
+                long begin = System.nanoTime();
+                singleton.get(owners.get(singleton));
+                sequential.addAndGet(System.nanoTime() - begin);
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(initialized.values().toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+        return new EagerInitialization(initialized.size(), Duration.ofNanos(System.nanoTime() - start), Duration.ofNanos(sequential.get()));
+    }
+
+    // Nearest singletons reachable through direct dependencies, looking through prototypes, collections,
+    // Optionals and inherited bindings, each dependency resolved in the context owning its dependent.
+    private static Set<ComponentProvider<?>> singletonsRequiredBy(FrozenContext.Binding singleton, Map<ComponentProvider<?>, FrozenContext.Binding> owners) {
+        Set<ComponentProvider<?>> required = new HashSet<>();
+        Set<FrozenContext.Binding> visited = new HashSet<>();
+        Deque<FrozenContext.Binding> pending = new ArrayDeque<>(List.of(singleton));
+        while (!pending.isEmpty()) {
+            FrozenContext.Binding current = pending.pop();
+            for (ComponentRef<?> dependency : current.provider().getDependencies()) {
+                if (!dependency.isDirect()) continue;
+                FrozenContext.Binding next = FrozenContext.bindingOf(current.context().providerOf(dependency));
+                if (next == null || !visited.add(next)) continue;
+                if (MeteredProvider.unwrap(next.provider()) instanceof SingletonProvider<?> provider) {
+                    required.add(provider);
+                    owners.putIfAbsent(provider, next);
+                } else pending.push(next);
+            }
+        }
+        return required;
+    }
+
+    private static List<ComponentProvider<?>> topologicalOrder(Map<ComponentProvider<?>, Set<ComponentProvider<?>>> prerequisites) {
+        Map<ComponentProvider<?>, Integer> remaining = new HashMap<>();
+        Map<ComponentProvider<?>, List<ComponentProvider<?>>> dependents = new HashMap<>();
+        Deque<ComponentProvider<?>> ready = new ArrayDeque<>();
+        prerequisites.forEach((singleton, required) -> {
+            remaining.put(singleton, required.size());
+            for (ComponentProvider<?> prerequisite : required)
+                dependents.computeIfAbsent(prerequisite, p -> new ArrayList<>()).add(singleton);
+            if (required.isEmpty()) ready.add(singleton);
+        });
+
+        List<ComponentProvider<?>> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            ComponentProvider<?> singleton = ready.poll();
+            order.add(singleton);
+            for (ComponentProvider<?> dependent : dependents.getOrDefault(singleton, List.of()))
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,525 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Provider;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Immutable snapshot of the bindings at getContext(). Each component owns a dense slot, found for an
+// unqualified component by a plain array read indexed by its id. What a provider links to lives here too,
+// in the Binding of its slot, so contexts sharing providers never relink each other's. A child context
+// holds only its overrides and the bindings re-created because they depend on one, and defers the rest to
+// its parent. Below an on-demand context those are only found, and re-created, on first use.
+class FrozenContext implements Context {
+    private static final AtomicInteger IDS = new AtomicInteger();
+    private static final VarHandle CHECKED = MethodHandles.arrayElementVarHandle(boolean[].class);
+    private static final int[] NONE = new int[0];
+    private static final Handle ABSENT = new Handle() {
+        @Override
+        Object resolve() {
+            return Optional.empty();
+        }
+
+        @Override
+        CompletableFuture<Object> resolveAsync() {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    };
+
+    private final int id = IDS.incrementAndGet();
+    private final Component[] components;
+    private final ComponentProvider<?>[] providers;
+    private final Binding[] bound;
+    private final ProviderContainer[] containers;
+    private final Present[] presents;
+    private final Map<Component, Integer> slots;
+    // Slot + 1 of each unqualified component by its id; qualified ones are only in slots.
+    private final int[] index;
+    private final Executor executor;
+    private final InjectionMode mode;
+    private final FrozenContext parent;
+    // Slots of the components depending on each component, built when the first child is created.
+    private volatile Map<Component, int[]> dependents;
+    private ContextMetrics metrics = ContextMetrics.NONE;
+    // Only set for on-demand validation: whether the subgraph reachable from each slot has been checked.
+    private boolean[] checked;
+    // Only set in a child of an on-demand context: the ancestors' components re-created here, once checked,
+    // because they reach one of its bindings, and those found not to, which stay shared.
+    private final Map<Component, Binding> forks;
+    private final Set<Component> shared;
+
+    FrozenContext(Map<Component, ComponentProvider<?>> bindings) {
+        this(bindings, ForkJoinPool.commonPool(), InjectionMode.defaultMode());
+    }
+
+    FrozenContext(Map<Component, ComponentProvider<?>> bindings, Executor executor, InjectionMode mode) {
+        this(bindings, executor, mode, null, false);
+    }
+
+    private FrozenContext(Map<Component, ComponentProvider<?>> bindings, Executor executor, InjectionMode mode, FrozenContext parent,
+                          boolean deferred) {
+        this.executor = executor;
+        this.mode = mode;
+        this.parent = parent;
+        this.forks = deferred ? new ConcurrentHashMap<>() : null;
+        this.shared = deferred ? ConcurrentHashMap.newKeySet() : null;
+        this.components = bindings.keySet().toArray(Component[]::new);
+        this.providers = new ComponentProvider<?>[components.length];
+        this.bound = new Binding[components.length];
+        this.containers = new ProviderContainer[components.length];
+        this.presents = new Present[components.length];
+        this.slots = new HashMap<>(components.length * 2);
+        this.index = new int[Arrays.stream(components).mapToInt(Component::id).max().orElse(-1) + 1];
+        for (int slot = 0; slot < components.length; slot++) {
+            providers[slot] = bindings.get(components[slot]);
+            bound[slot] = new Binding(this, providers[slot]);
+            containers[slot] = new ProviderContainer(bound[slot]);
+            presents[slot] = new Present(bound[slot]);
+            slots.put(components[slot], slot);
+            if (components[slot].id() >= 0) index[components[slot].id()] = slot + 1;
+        }
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        return Optional.ofNullable(getNullable(ref));
+    }
+
+    @Override
+    public <ComponentType> ComponentType getRequired(ComponentRef<ComponentType> ref) {
+        ComponentType component = getNullable(ref);
+        if (component == null) throw new NoSuchElementException();
+        return component;
+    }
+
+    @Override
+    public <ComponentType> ComponentType getNullable(ComponentRef<ComponentType> ref) {
+        Handle handle = checkedHandleOf(ref);
+        if (handle != null) return (ComponentType) handle.resolve();
+        if (parent != null) return parent.getNullable(ref);
+        return ref.isOptional() ? (ComponentType) Optional.empty() : null;
+    }
+
+    @Override
+    public <ComponentType> CompletableFuture<ComponentType> getAsync(ComponentRef<ComponentType> ref) {
+        Handle handle;
+        try {
+            handle = checkedHandleOf(ref);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (handle != null) return (CompletableFuture<ComponentType>) (CompletableFuture<?>) handle.resolveAsync();
+        if (parent != null) return parent.getAsync(ref);
+        if (ref.isOptional()) return CompletableFuture.completedFuture((ComponentType) Optional.empty());
+        return CompletableFuture.failedFuture(new NoSuchElementException());
+    }
+
+    private Handle checkedHandleOf(ComponentRef<?> ref) {
+        int slot = slot(ref.key());
+        if (slot < 0) {
+            Binding fork = forks == null ? null : forkOf(ref.key());
+            return fork == null ? null : handleOf(ref, fork);
+        }
+        boolean[] checked = this.checked;
+        if (checked != null && !(boolean) CHECKED.getAcquire(checked, slot)) validate(slot);
+        return handleOf(ref, slot);
+    }
+
+    // What yields the value injected for ref, or null if this context cannot satisfy it. What an ancestor
+    // owns comes bound to that ancestor, so its instances and links are reused. An Optional is settled here,
+    // at link time: it yields the component or is always empty.
+    ComponentProvider<?> providerOf(ComponentRef<?> ref) {
+        int slot = slot(ref.key());
+        if (slot >= 0) return handleOf(ref, slot);
+        Binding fork = forks == null ? null : forkOf(ref.key());
+        if (fork != null) return handleOf(ref, fork);
+        ComponentProvider<?> inherited = parent == null ? null : parent.providerOf(ref);
+        return inherited == null && ref.isOptional() ? ABSENT : inherited;
+    }
+
+    private Handle handleOf(ComponentRef<?> ref, int slot) {
+        if (ref.isOptional()) return presents[slot];
+        if (ref.isDirect()) return bound[slot];
+        if (ref.getContainer() != Provider.class && ref.getContainer() != Supplier.class) return null;
+        return containers[slot];
+    }
+
+    private static Handle handleOf(ComponentRef<?> ref, Binding fork) {
+        if (ref.isOptional()) return new Present(fork);
+        if (ref.isDirect()) return fork;
+        if (ref.getContainer() != Provider.class && ref.getContainer() != Supplier.class) return null;
+        return new ProviderContainer(fork);
+    }
+
+    void validate() {
+        if (forks == null) {
+            new ComponentGraph(components, providers, slots, this::inherits).checkCycles();
+            return;
+        }
+        checked = new boolean[components.length];
+        for (int slot = 0; slot < components.length; slot++) validate(slot);
+        checked = null;
+    }
+
+    // Defers introspection and validation to the first lookup of each component; must precede publication.
+    void validateOnDemand() {
+        checked = new boolean[components.length];
+    }
+
+    private synchronized void validate(int slot) {
+        if (checked[slot]) return;
+        if (forks != null) {
+            check(components[slot], bound[slot]);
+            return;
+        }
+        ComponentGraph graph = ComponentGraph.reachableFrom(slot, components, providers, slots, this::inherits, s -> checked[s]);
+        graph.checkCycles();
+        for (int member : graph.slots()) CHECKED.setRelease(checked, member, true);
+    }
+
+    void link() {
+        for (int slot = 0; slot < providers.length; slot++) {
+            if (MeteredProvider.unwrap(providers[slot]) instanceof RequestScopedProvider<?> scoped) scoped.slot(this, slot);
+            providers[slot].link(bound[slot]);
+        }
+    }
+
+    // Checks the subgraph that the bindings and forks of a child of an on-demand context make from root. What
+    // the child shares is left to the ancestor owning it, and forks are only published once checked.
+    private synchronized void check(Component root, Binding binding) {
+        if (forks.containsKey(root)) return;
+        Map<Component, Binding> found = new LinkedHashMap<>();
+        found.put(root, binding);
+        Deque<Binding> pending = new ArrayDeque<>(List.of(binding));
+        while (!pending.isEmpty())
+            for (ComponentRef<?> ref : pending.pop().provider().getDependencies()) {
+                Component dependency = ref.key();
+                if (found.containsKey(dependency) || forks.containsKey(dependency)) continue;
+                int slot = slot(dependency);
+                Binding next = slot >= 0 ? (checked == null || checked[slot] ? null : bound[slot])
+                        : reaches(dependency) ? fork(dependency) : null;
+                if (next == null) continue;
+                found.put(dependency, next);
+                pending.push(next);
+            }
+        Component[] components = found.keySet().toArray(Component[]::new);
+        ComponentProvider<?>[] providers = found.values().stream().map(Binding::provider).toArray(ComponentProvider<?>[]::new);
+        Map<Component, Integer> ids = new HashMap<>(components.length * 2);
+        for (int id = 0; id < components.length; id++) ids.put(components[id], id);
+        new ComponentGraph(components, providers, ids, this::provides).checkCycles();
+        for (Map.Entry<Component, Binding> entry : found.entrySet()) {
+            int slot = slot(entry.getKey());
+            if (slot >= 0) CHECKED.setRelease(checked, slot, true);
+            else forks.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // The fork of an ancestor's component in a child of an on-demand context, or null if the child shares it.
+    private Binding forkOf(Component component) {
+        Binding fork = forks.get(component);
+        if (fork != null || !reaches(component)) return fork;
+        check(component, fork(component));
+        return forks.get(component);
+    }
+
+    private Binding fork(Component component) {
+        FrozenContext owner = parent.owner(component);
+        return new Binding(this, owner.providers[owner.slot(component)].fork());
+    }
+
+    // Whether an ancestor's component depends, directly or not, on a binding of this child. Only the components
+    // on the way are introspected; when none is reached, all of them are remembered as shared.
+    private boolean reaches(Component component) {
+        if (shared.contains(component)) return false;
+        Set<Component> seen = new HashSet<>(List.of(component));
+        Deque<Component> pending = new ArrayDeque<>(seen);
+        while (!pending.isEmpty()) {
+            Component current = pending.pop();
+            FrozenContext owner = parent.owner(current);
+            if (owner == null) continue;
+            for (ComponentRef<?> ref : owner.providers[owner.slot(current)].getDependencies()) {
+                Component dependency = ref.key();
+                if (slot(dependency) >= 0 || forks.containsKey(dependency)) return true;
+                if (!shared.contains(dependency) && seen.add(dependency)) pending.push(dependency);
+            }
+        }
+        shared.addAll(seen);
+        return false;
+    }
+
+    // Whether an ancestor binds component, checking it there first if that ancestor validates on demand.
+    private boolean inherits(Component component) {
+        return parent != null && parent.provides(component);
+    }
+
+    private boolean provides(Component component) {
+        int slot = slot(component);
+        if (slot < 0) return forks != null && forkOf(component) != null || inherits(component);
+        if (checked != null && !(boolean) CHECKED.getAcquire(checked, slot)) validate(slot);
+        return true;
+    }
+
+    // Re-creates every binding of this context or its ancestors that reaches an overridden component, walking
+    // reverse dependencies from the overrides only; everything else stays shared with this context. Below an
+    // on-demand context, finding those dependents would introspect every binding up front, so the child
+    // decides for each ancestor's component on its first use instead.
+    FrozenContext child(Map<Component, ComponentProvider<?>> overrides, Executor executor, InjectionMode mode) {
+        for (FrozenContext level = this; level != null; level = level.parent)
+            if (level.checked != null || level.forks != null) return new FrozenContext(overrides, executor, mode, this, true);
+        Map<Component, ComponentProvider<?>> bindings = new HashMap<>(overrides);
+        Deque<Component> changed = new ArrayDeque<>(overrides.keySet());
+        while (!changed.isEmpty()) {
+            Component component = changed.pop();
+            for (FrozenContext level = this; level != null; level = level.parent)
+                for (int slot : level.dependents().getOrDefault(component, NONE)) {
+                    Component dependent = level.components[slot];
+                    if (bindings.containsKey(dependent) || owner(dependent) != level) continue;
+                    bindings.put(dependent, level.providers[slot].fork());
+                    changed.push(dependent);
+                }
+        }
+        return new FrozenContext(bindings, executor, mode, this, false);
+    }
+
+    // One context binding what this one resolves, reusing the providers (and so the singletons) of every level.
+    FrozenContext flatten() {
+        boolean onDemand = false;
+        for (FrozenContext level = this; level != null; level = level.parent) onDemand |= level.checked != null;
+        FrozenContext flat = new FrozenContext(bindings(), executor, mode);
+        flat.metrics = metrics;
+        if (onDemand) flat.validateOnDemand();
+        else flat.link();
+        return flat;
+    }
+
+    // Every binding this context resolves, nearest level first. A component a child below an on-demand context
+    // has not decided on yet is forked if that child reaches one of its bindings through it; only providers
+    // with instances of their own need deciding, the rest are relinked as they are.
+    Map<Component, ComponentProvider<?>> bindings() {
+        Map<Component, ComponentProvider<?>> bindings = new LinkedHashMap<>();
+        List<FrozenContext> deferred = new ArrayList<>();
+        for (FrozenContext level = this; level != null; level = level.parent) {
+            for (int slot = 0; slot < level.components.length; slot++)
+                if (!bindings.containsKey(level.components[slot]))
+                    bindings.put(level.components[slot], forkedBy(deferred, level.components[slot], level.providers[slot]));
+            if (level.forks == null) continue;
+            for (Map.Entry<Component, Binding> fork : level.forks.entrySet())
+                if (!bindings.containsKey(fork.getKey()))
+                    bindings.put(fork.getKey(), forkedBy(deferred, fork.getKey(), fork.getValue().provider()));
+            deferred.add(level);
+        }
+        return bindings;
+    }
+
+    private static ComponentProvider<?> forkedBy(List<FrozenContext> deferred, Component component, ComponentProvider<?> provider) {
+        ComponentProvider<?> fork = provider.fork();
+        if (fork != provider)
+            for (FrozenContext level : deferred)
+                if (level.reaches(component)) return fork;
+        return provider;
+    }
+
+    // Whether this context or an ancestor binds component, without validating it.
+    boolean binds(Component component) {
+        return owner(component) != null;
+    }
+
+    private FrozenContext owner(Component component) {
+        FrozenContext level = this;
+        while (level != null && level.slot(component) < 0) level = level.parent;
+        return level;
+    }
+
+    private Map<Component, int[]> dependents() {
+        Map<Component, int[]> current = dependents;
+        if (current != null) return current;
+        Map<Component, List<Integer>> reverse = new HashMap<>();
+        for (int slot = 0; slot < providers.length; slot++)
+            for (ComponentRef<?> dependency : providers[slot].getDependencies())
+                reverse.computeIfAbsent(dependency.key(), c -> new ArrayList<>()).add(slot);
+        current = new HashMap<>(reverse.size() * 2);
+        for (Map.Entry<Component, List<Integer>> entry : reverse.entrySet())
+            current.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).distinct().toArray());
+        return dependents = current;
+    }
+
+    // Must precede publication, like validateOnDemand.
+    void metrics(ContextMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ContextMetrics metrics() {
+        return metrics;
+    }
+
+    int id() {
+        return id;
+    }
+
+    int slot(Component component) {
+        int id = component.id();
+        if (id < 0) return slots.getOrDefault(component, -1);
+        return id < index.length ? index[id] - 1 : -1;
+    }
+
+    Binding binding(int slot) {
+        return bound[slot];
+    }
+
+    int size() {
+        return components.length;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    InjectionMode mode() {
+        return mode;
+    }
+
+    boolean validatesOnDemand() {
+        return checked != null;
+    }
+
+    // The Binding beneath what providerOf handed out for a direct or Optional ref, null for anything else.
+    static Binding bindingOf(ComponentProvider<?> provider) {
+        if (provider instanceof Present present) return present.binding;
+        return provider instanceof Binding binding ? binding : null;
+    }
+
+    // What providerOf hands out: it resolves in the context that made it, whatever context it is called with.
+    private abstract static class Handle implements ComponentProvider<Object> {
+        abstract Object resolve();
+
+        abstract CompletableFuture<Object> resolveAsync();
+
+        @Override
+        public final Object get(Context ignored) {
+            return resolve();
+        }
+
+        @Override
+        public final CompletableFuture<Object> getAsync(Binding ignored) {
+            return resolveAsync();
+        }
+    }
+
+    // A provider as bound at one slot of one context. The provider resolves with the Binding as its context,
+    // so what it links to, kept here, is this context's however many contexts share the provider.
+    static final class Binding extends Handle implements Context {
+        private final FrozenContext context;
+        private final ComponentProvider<?> provider;
+        private volatile Object links;
+
+        private Binding(FrozenContext context, ComponentProvider<?> provider) {
+            this.context = context;
+            this.provider = provider;
+        }
+
+        FrozenContext context() {
+            return context;
+        }
+
+        ComponentProvider<?> provider() {
+            return provider;
+        }
+
+        Executor executor() {
+            return context.executor;
+        }
+
+        // The links of the provider beneath, made on first use unless link() made them; a race only repeats it.
+        <Links> Links links(Function<Binding, Links> link) {
+            Object current = links;
+            if (current == null) links = current = link.apply(this);
+            return (Links) current;
+        }
+
+        @Override
+        Object resolve() {
+            return provider.get(this);
+        }
+
+        @Override
+        CompletableFuture<Object> resolveAsync() {
+            return (CompletableFuture<Object>) provider.getAsync(this);
+        }
+
+        @Override
+        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+            return context.get(ref);
+        }
+
+        @Override
+        public <ComponentType> ComponentType getRequired(ComponentRef<ComponentType> ref) {
+            return context.getRequired(ref);
+        }
+
+        @Override
+        public <ComponentType> ComponentType getNullable(ComponentRef<ComponentType> ref) {
+            return context.getNullable(ref);
+        }
+
+        @Override
+        public <ComponentType> CompletableFuture<ComponentType> getAsync(ComponentRef<ComponentType> ref) {
+            return context.getAsync(ref);
+        }
+
+        @Override
+        public ContextMetrics metrics() {
+            return context.metrics();
+        }
+    }
+
+    private static final class Present extends Handle {
+        private final Binding binding;
+
+        Present(Binding binding) {
+            this.binding = binding;
+        }
+
+        @Override
+        Object resolve() {
+            return Optional.of(binding.resolve());
+        }
+
+        @Override
+        CompletableFuture<Object> resolveAsync() {
+            return binding.resolveAsync().thenApply(Optional::of);
+        }
+    }
+
+    // The one Provider<T> (and Supplier<T>) handed out for a slot; as a ComponentProvider it resolves to itself.
+    private static final class ProviderContainer extends Handle implements Provider<Object>, Supplier<Object> {
+        private final Binding binding;
+
+        ProviderContainer(Binding binding) {
+            this.binding = binding;
+        }
+
+        @Override
+        public Object get() {
+            return binding.resolve();
+        }
+
+        @Override
+        Object resolve() {
+            return this;
+        }
+
+        @Override
+        CompletableFuture<Object> resolveAsync() {
+            return CompletableFuture.completedFuture(this);
+        }
+    }
+}
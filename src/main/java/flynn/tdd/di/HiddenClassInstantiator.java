@@ -0,0 +1,289 @@
+package flynn.tdd.di;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static flynn.tdd.di.InjectionProvider.Injectable;
+import static java.lang.invoke.MethodHandles.Lookup.ClassOption.NESTMATE;
+import static java.util.stream.Stream.concat;
+
+// Emits one Instantiator class per component and defines it as a hidden nestmate of the component, so the
+// generated newInstance calls the constructor, assigns fields and invokes methods with plain bytecode.
+final class HiddenClassInstantiator {
+    private static final int CLASS_VERSION = 61;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int ASTORE_2 = 0x4d;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int AALOAD = 0x32;
+    private static final int NEW = 0xbb;
+    private static final int DUP = 0x59;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int PUTFIELD = 0xb5;
+    private static final int PUTSTATIC = 0xb3;
+    private static final int CHECKCAST = 0xc0;
+    private static final int POP = 0x57;
+    private static final int POP2 = 0x58;
+    private static final int RETURN = 0xb1;
+    private static final int ARETURN = 0xb0;
+
+    private HiddenClassInstantiator() {
+    }
+
+    static <T> Optional<Instantiator<T>> define(Class<T> component, Injectable<Constructor<T>> constructor,
+                                                List<Injectable<Field>> fields, List<Injectable<Method>> methods) {
+        if (!accessible(component, constructor, fields, methods)) return Optional.empty();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(component, MethodHandles.lookup())
+                    .defineHiddenClass(generate(component, constructor, fields, methods), true, NESTMATE);
+            return Optional.of((Instantiator<T>) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke());
+        } catch (Throwable e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean accessible(Class<?> component, Injectable<? extends Constructor<?>> constructor,
+                                      List<Injectable<Field>> fields, List<Injectable<Method>> methods) {
+        if (concat(concat(Stream.of(constructor), fields.stream()), methods.stream()).mapToInt(i -> i.required().length).sum() > Short.MAX_VALUE)
+            return false;
+        Stream<Member> members = concat(concat(Stream.of(constructor.element()), fields.stream().map(Injectable::element)),
+                methods.stream().map(Injectable::element));
+        Stream<Class<?>> types = concat(concat(Arrays.stream(constructor.element().getParameterTypes()), fields.stream().map(f -> f.element().getType())),
+                methods.stream().flatMap(m -> Arrays.stream(m.element().getParameterTypes())));
+        return members.allMatch(m -> accessible(component, m)) && types.allMatch(t -> accessible(component, t));
+    }
+
+    private static boolean accessible(Class<?> component, Member member) {
+        Class<?> declaring = member.getDeclaringClass();
+        if (Modifier.isPrivate(member.getModifiers())) return declaring.getNestHost() == component.getNestHost();
+        if (samePackage(component, declaring)) return true;
+        return Modifier.isPublic(member.getModifiers()) && accessible(component, declaring);
+    }
+
+    private static boolean accessible(Class<?> component, Class<?> type) {
+        while (type.isArray()) type = type.getComponentType();
+        if (type.isPrimitive() || samePackage(component, type)) return true;
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass())
+            if (!Modifier.isPublic(current.getModifiers())) return false;
+        return true;
+    }
+
+    private static boolean samePackage(Class<?> component, Class<?> type) {
+        return component.getClassLoader() == type.getClassLoader() && component.getPackageName().equals(type.getPackageName());
+    }
+
+    private static byte[] generate(Class<?> component, Injectable<? extends Constructor<?>> constructor,
+                                   List<Injectable<Field>> fields, List<Injectable<Method>> methods) throws IOException {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.type(internalName(component) + "$$Instantiator");
+        int superClass = pool.type("java/lang/Object");
+        int instantiator = pool.type(internalName(Instantiator.class));
+        int objectInit = pool.method(superClass, "<init>", "()V");
+
+        Code init = new Code();
+        init.op(ALOAD_0).op(INVOKESPECIAL).u2(objectInit).op(RETURN);
+
+        Code create = new Code();
+        int index = 0;
+        int slots = 0;
+        Constructor<?> element = constructor.element();
+        create.op(NEW).u2(pool.type(internalName(component))).op(DUP);
+        for (Class<?> parameter : element.getParameterTypes()) index = load(create, pool, parameter, index);
+        create.op(INVOKESPECIAL).u2(pool.method(pool.type(internalName(component)), "<init>", descriptor(element.getParameterTypes(), void.class)));
+        create.op(ASTORE_2);
+        slots = Math.max(slots, size(element.getParameterTypes()) + 2);
+
+        for (Injectable<Field> injectable : fields) {
+            Field field = injectable.element();
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            if (!isStatic) create.op(ALOAD_2);
+            index = load(create, pool, field.getType(), index);
+            create.op(isStatic ? PUTSTATIC : PUTFIELD).u2(pool.field(pool.type(internalName(field.getDeclaringClass())), field.getName(), descriptor(field.getType())));
+            slots = Math.max(slots, size(field.getType()) + 1);
+        }
+
+        for (Injectable<Method> injectable : methods) {
+            Method method = injectable.element();
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            if (!isStatic) create.op(ALOAD_2);
+            for (Class<?> parameter : method.getParameterTypes()) index = load(create, pool, parameter, index);
+            create.op(isStatic ? INVOKESTATIC : INVOKEVIRTUAL).u2(pool.method(pool.type(internalName(method.getDeclaringClass())), method.getName(),
+                    descriptor(method.getParameterTypes(), method.getReturnType())));
+            if (method.getReturnType() == long.class || method.getReturnType() == double.class) create.op(POP2);
+            else if (method.getReturnType() != void.class) create.op(POP);
+            slots = Math.max(slots, Math.max(size(method.getParameterTypes()) + 1, size(method.getReturnType())));
+        }
+        create.op(ALOAD_2).op(ARETURN);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int code = pool.utf8("Code");
+        int initName = pool.utf8("<init>");
+        int initDescriptor = pool.utf8("()V");
+        int createName = pool.utf8("newInstance");
+        int createDescriptor = pool.utf8("([Ljava/lang/Object;)Ljava/lang/Object;");
+
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(CLASS_VERSION);
+        pool.write(out);
+        out.writeShort(Modifier.PUBLIC | Modifier.FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(instantiator);
+        out.writeShort(0);
+        out.writeShort(2);
+        method(out, Modifier.PUBLIC, initName, initDescriptor, code, 1, 1, init);
+        method(out, Modifier.PUBLIC, createName, createDescriptor, code, slots + 4, 3, create);
+        out.writeShort(0);
+        return bytes.toByteArray();
+    }
+
+    // Pushes dependencies[index] converted to the given type, leaving it on the operand stack.
+    private static int load(Code code, ConstantPool pool, Class<?> type, int index) {
+        code.op(ALOAD_1);
+        if (index <= 5) code.op(ICONST_0 + index);
+        else if (index <= Byte.MAX_VALUE) code.op(BIPUSH).op(index);
+        else code.op(SIPUSH).u2(index);
+        code.op(AALOAD);
+        if (type.isPrimitive()) {
+            Class<?> wrapper = MethodType.methodType(type).wrap().returnType();
+            int owner = pool.type(internalName(wrapper));
+            code.op(CHECKCAST).u2(owner);
+            code.op(INVOKEVIRTUAL).u2(pool.method(owner, type.getName() + "Value", "()" + descriptor(type)));
+        } else if (type != Object.class) {
+            code.op(CHECKCAST).u2(pool.type(type.isArray() ? descriptor(type) : internalName(type)));
+        }
+        return index + 1;
+    }
+
+    private static void method(DataOutputStream out, int access, int name, int descriptor, int attribute,
+                               int maxStack, int maxLocals, Code code) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(attribute);
+        out.writeInt(12 + code.size());
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.size());
+        code.writeTo(out);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private static int size(Class<?>... types) {
+        int size = 0;
+        for (Class<?> type : types) size += type == long.class || type == double.class ? 2 : type == void.class ? 0 : 1;
+        return size;
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?>[] parameters, Class<?> returnType) {
+        return MethodType.methodType(returnType, parameters).toMethodDescriptorString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        return type.descriptorString();
+    }
+
+    private static class Code extends ByteArrayOutputStream {
+        Code op(int value) {
+            write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            write(value >>> 8);
+            write(value);
+            return this;
+        }
+    }
+
+    private static class ConstantPool {
+        private final Map<String, Integer> entries = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, () -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int type(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, () -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int field(int owner, String name, String descriptor) {
+            return member(9, owner, name, descriptor);
+        }
+
+        int method(int owner, String name, String descriptor) {
+            return member(10, owner, name, descriptor);
+        }
+
+        private int member(int tag, int owner, String name, String descriptor) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + ":" + descriptor, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry(tag + ":" + owner + "." + name + ":" + descriptor, () -> {
+                out.writeByte(tag);
+                out.writeShort(owner);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int entry(String key, Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null) return index;
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        void write(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package flynn.tdd.di;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static flynn.tdd.di.InjectionProvider.Injectable;
+
+public enum InjectionMode {
+    METHOD_HANDLE {
+        @Override
+        <T> Instantiator<T> compile(Class<T> component, Injectable<Constructor<T>> constructor,
+                                    List<Injectable<Field>> fields, List<Injectable<Method>> methods) {
+            return new MethodHandleInstantiator<>(constructor, fields, methods);
+        }
+    },
+    HIDDEN_CLASS {
+        @Override
+        <T> Instantiator<T> compile(Class<T> component, Injectable<Constructor<T>> constructor,
+                                    List<Injectable<Field>> fields, List<Injectable<Method>> methods) {
+            return HiddenClassInstantiator.define(component, constructor, fields, methods)
+                    .orElseGet(() -> METHOD_HANDLE.compile(component, constructor, fields, methods));
+        }
+    };
+
+    static final String PROPERTY = "flynn.tdd.di.injection";
+
+    abstract <T> Instantiator<T> compile(Class<T> component, Injectable<Constructor<T>> constructor,
+                                         List<Injectable<Field>> fields, List<Injectable<Method>> methods);
+
+    static InjectionMode defaultMode() {
+        return valueOf(System.getProperty(PROPERTY, METHOD_HANDLE.name()));
+    }
+}
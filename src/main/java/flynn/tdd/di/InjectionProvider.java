@@ -6,52 +6,213 @@ import jakarta.inject.Qualifier;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.stream;
 import static java.util.stream.Stream.concat;
 
 class InjectionProvider<T> implements ComponentProvider<T> {
+    private static final ComponentProvider<?> MISSING = context -> {
+        throw new NoSuchElementException();
+    };
 
-    private Injectable<Constructor<T>> injectConstructor;
-    private List<Injectable<Method>> injectMethods;
-    private List<Injectable<Field>> injectFields;
+    // Introspection results are shared by every provider, config and thread; ClassValue lets the classes unload.
+    // A plan may seed it with metadata decoded from file instead.
+    private static final ClassValue<AtomicReference<Metadata<?>>> METADATA = new ClassValue<>() {
+        @Override
+        protected AtomicReference<Metadata<?>> computeValue(Class<?> component) {
+            return new AtomicReference<>();
+        }
+    };
+    private static final ClassValue<Optional<ComponentFactory<?>>> GENERATED = new ClassValue<>() {
+        @Override
+        protected Optional<ComponentFactory<?>> computeValue(Class<?> component) {
+            return generatedFactory(component);
+        }
+    };
+
+    private ComponentRef<?>[] dependencies;
+    private Instantiator<T> instantiator;
 
     public InjectionProvider(Class<T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) throw new IllegalComponentException();
+        this(component, InjectionMode.defaultMode());
+    }
 
-        this.injectConstructor = getInjectConstructor(component);
-        this.injectMethods = getInjectMethods(component);
-        this.injectFields = getInjectFields(component);
+    public InjectionProvider(Class<T> component, InjectionMode mode) {
+        this(metadata(component), mode);
+    }
 
-        if (injectFields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers())))
-            throw new IllegalComponentException();
+    private InjectionProvider(Metadata<T> metadata, InjectionMode mode) {
+        this.dependencies = metadata.dependencies;
+        this.instantiator = metadata.instantiator(mode);
+    }
 
-        if (injectMethods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0))
-            throw new IllegalComponentException();
+    InjectionProvider(ComponentFactory<T> factory) {
+        this(factory.getDependencies().toArray(ComponentRef<?>[]::new), factory);
+    }
+
+    private InjectionProvider(ComponentRef<?>[] dependencies, Instantiator<T> instantiator) {
+        this.dependencies = dependencies;
+        this.instantiator = instantiator;
+    }
+
+    static <T> InjectionProvider<T> of(Class<T> component, InjectionMode mode) {
+        return GENERATED.get(component).map(factory -> new InjectionProvider<>((ComponentFactory<T>) factory))
+                .orElseGet(() -> new InjectionProvider<>(component, mode));
+    }
+
+    // Components the plan recorded skip the generated factory probe, and introspection unless already cached.
+    static <T> InjectionProvider<T> of(Class<T> component, InjectionMode mode, ResolutionPlan plan) {
+        if (plan.contains(component)) return new InjectionProvider<>(metadata(component, () -> plan.metadata(component)), mode);
+        Optional<ComponentFactory<?>> factory = GENERATED.get(component);
+        if (factory.isPresent()) return new InjectionProvider<>((ComponentFactory<T>) factory.get());
+        Metadata<T> metadata = metadata(component);
+        plan.record(metadata);
+        return new InjectionProvider<>(metadata, mode);
+    }
+
+    static <T> Metadata<T> metadata(Class<T> component) {
+        return metadata(component, () -> new Metadata<>(component));
+    }
 
+    private static <T> Metadata<T> metadata(Class<T> component, Supplier<Metadata<T>> compute) {
+        AtomicReference<Metadata<?>> shared = METADATA.get(component);
+        Metadata<?> metadata = shared.get();
+        if (metadata == null && !shared.compareAndSet(null, metadata = compute.get())) metadata = shared.get();
+        return (Metadata<T>) metadata;
+    }
+
+    static final class Metadata<T> {
+        final Class<T> component;
+        final Injectable<Constructor<T>> injectConstructor;
+        final List<Injectable<Field>> injectFields;
+        final List<Injectable<Method>> injectMethods;
+        private final ComponentRef<?>[] dependencies;
+        private final AtomicReferenceArray<Instantiator<T>> instantiators = new AtomicReferenceArray<>(InjectionMode.values().length);
+
+        Metadata(Class<T> component) {
+            this(component, getInjectConstructor(component), getInjectFields(component), getInjectMethods(component));
+        }
+
+        Metadata(Class<T> component, Injectable<Constructor<T>> injectConstructor, List<Injectable<Field>> injectFields,
+                 List<Injectable<Method>> injectMethods) {
+            if (Modifier.isAbstract(component.getModifiers())) throw new IllegalComponentException();
+
+            this.component = component;
+            this.injectConstructor = injectConstructor;
+            this.injectFields = injectFields;
+            this.injectMethods = injectMethods;
+
+            if (injectFields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers())))
+                throw new IllegalComponentException();
+
+            if (injectMethods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0))
+                throw new IllegalComponentException();
+
+            this.dependencies = concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
+                    .flatMap(i -> stream(i.required())).toArray(ComponentRef<?>[]::new);
+        }
+
+        Instantiator<T> instantiator(InjectionMode mode) {
+            Instantiator<T> instantiator = instantiators.get(mode.ordinal());
+            if (instantiator != null) return instantiator;
+            instantiators.compareAndSet(mode.ordinal(), null, mode.compile(component, injectConstructor, injectFields, injectMethods));
+            return instantiators.get(mode.ordinal());
+        }
+    }
+
+    private static <T> Optional<ComponentFactory<?>> generatedFactory(Class<T> component) {
+        if (component.getClassLoader() == null || component.isAnonymousClass() || component.isLocalClass())
+            return Optional.empty();
+        String prefix = component.getPackageName().isEmpty() ? "" : component.getPackageName() + ".";
+        String name = prefix + component.getName().substring(prefix.length()).replace('$', '_') + "_Factory";
+        try {
+            Class<?> factory = Class.forName(name, true, component.getClassLoader());
+            if (!ComponentFactory.class.isAssignableFrom(factory)) return Optional.empty();
+            return Optional.of((ComponentFactory<?>) factory.getConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalComponentException();
+        }
     }
 
     @Override
     public T get(Context context) {
+        Object[] arguments = context instanceof FrozenContext.Binding binding ? toDependencies(binding) : toDependencies(context);
         try {
-            T instance = injectConstructor.element().newInstance(injectConstructor.toDependencies(context));
-            for (Injectable<Field> field : injectFields)
-                field.element.set(instance, field.toDependencies(context)[0]);
-            for (Injectable<Method> method : injectMethods)
-                method.element().invoke(instance, method.toDependencies(context));
-
-            return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
+            return instantiator.newInstance(arguments);
+        } catch (Throwable e) {
+            throw unchecked(e);
         }
     }
 
+    // Unchecked throwables from the constructor or injected methods propagate as they are; checked ones are wrapped.
+    private static RuntimeException unchecked(Throwable e) {
+        if (e instanceof RuntimeException runtime) return runtime;
+        if (e instanceof Error error) throw error;
+        return new RuntimeException(e);
+    }
+
+    // Every dependency is requested up front so independent ones construct concurrently; the component is
+    // instantiated on the context's executor once all of them are ready.
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        ComponentProvider<?>[] providers = binding.links(this::linkTo);
+        CompletableFuture<?>[] arguments = new CompletableFuture<?>[dependencies.length];
+        for (int i = 0; i < arguments.length; i++)
+            arguments[i] = providers[i].getAsync(binding);
+        return CompletableFuture.allOf(arguments).thenApplyAsync(ready -> {
+            Object[] values = new Object[arguments.length];
+            for (int i = 0; i < values.length; i++) values[i] = arguments[i].join();
+            try {
+                return instantiator.newInstance(values);
+            } catch (Throwable e) {
+                throw unchecked(e);
+            }
+        }, binding.executor());
+    }
+
     @Override
     public List<ComponentRef<?>> getDependencies() {
-        return concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
-                .flatMap(i -> stream(i.required())).toList();
+        return List.of(dependencies);
+    }
+
+    Instantiator<T> instantiator() {
+        return instantiator;
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        binding.links(this::linkTo);
+    }
+
+    // The providers of the dependencies as bound in the context of binding, kept by the binding.
+    private ComponentProvider<?>[] linkTo(FrozenContext.Binding binding) {
+        ComponentProvider<?>[] providers = new ComponentProvider<?>[dependencies.length];
+        for (int i = 0; i < providers.length; i++)
+            providers[i] = Objects.requireNonNullElse(binding.context().providerOf(dependencies[i]), MISSING);
+        return providers;
+    }
+
+    private Object[] toDependencies(FrozenContext.Binding binding) {
+        ComponentProvider<?>[] providers = binding.links(this::linkTo);
+        Object[] arguments = new Object[dependencies.length];
+        for (int i = 0; i < arguments.length; i++)
+            arguments[i] = providers[i].get(binding);
+        return arguments;
+    }
+
+    private Object[] toDependencies(Context context) {
+        Object[] arguments = new Object[dependencies.length];
+        for (int i = 0; i < arguments.length; i++)
+            arguments[i] = context.get(dependencies[i]).get();
+        return arguments;
     }
 
     static record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required) {
@@ -63,10 +224,6 @@ class InjectionProvider<T> implements ComponentProvider<T> {
             return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)});
         }
 
-        Object[] toDependencies(Context context) {
-            return stream(required).map(context::get).map(Optional::get).toArray();
-        }
-
         private static ComponentRef toComponentRef(Field field) {
             Annotation qualifier = getQualifier(field);
             return ComponentRef.of(field.getGenericType(), qualifier);
@@ -97,10 +254,17 @@ class InjectionProvider<T> implements ComponentProvider<T> {
     }
 
 
-    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
-        List<Method> injectMethods = traverse(component, (methods, current) -> injectable(current.getDeclaredMethods())
-                .filter(m1 -> isOverrideByInjectMethod(methods, m1))
-                .filter(m1 -> isOverrideByNoInjectMethod(component, m1)).toList());
+    // Walks from the component up to Object, indexing every declared method by signature, so each @Inject
+    // method is checked only against the subclass methods sharing its name and parameter types.
+    static List<Injectable<Method>> getInjectMethods(Class<?> component) {
+        Map<Signature, List<Method>> overriders = new HashMap<>();
+        List<Method> injectMethods = traverse(component, (methods, current) -> {
+            Method[] declared = current.getDeclaredMethods();
+            List<Method> injectable = injectable(declared).filter(m -> !isOverridden(overriders, m)).toList();
+            for (Method method : declared)
+                overriders.computeIfAbsent(new Signature(method), s -> new ArrayList<>(1)).add(method);
+            return injectable;
+        });
         Collections.reverse(injectMethods);
         return injectMethods.stream().map(m -> Injectable.of(m)).toList();
     }
@@ -127,18 +291,23 @@ class InjectionProvider<T> implements ComponentProvider<T> {
         return stream(declaredFields).filter(f -> f.isAnnotationPresent(Inject.class));
     }
 
-    private static boolean isOverride(Method m, Method o) {
-        return o.getName().equals(m.getName()) &&
-                Arrays.equals(o.getParameterTypes(), m.getParameterTypes());
+    private static boolean isOverridden(Map<Signature, List<Method>> overriders, Method m) {
+        if (Modifier.isPrivate(m.getModifiers()) || Modifier.isStatic(m.getModifiers())) return false;
+        List<Method> candidates = overriders.get(new Signature(m));
+        return candidates != null && candidates.stream().anyMatch(o -> isOverride(m, o));
     }
 
-    private static <T> boolean isOverrideByNoInjectMethod(Class<T> component, Method m) {
-        return stream(component.getDeclaredMethods()).filter(m1 -> !m1.isAnnotationPresent(Inject.class))
-                .noneMatch(o -> isOverride(m, o));
+    private static boolean isOverride(Method m, Method o) {
+        if (Modifier.isStatic(o.getModifiers())) return false;
+        if (Modifier.isPublic(m.getModifiers()) || Modifier.isProtected(m.getModifiers())) return true;
+        return m.getDeclaringClass().getClassLoader() == o.getDeclaringClass().getClassLoader()
+                && m.getDeclaringClass().getPackageName().equals(o.getDeclaringClass().getPackageName());
     }
 
-    private static boolean isOverrideByInjectMethod(List<Method> injectMethods, Method m) {
-        return injectMethods.stream().noneMatch(o -> isOverride(m, o));
+    private record Signature(String name, List<Class<?>> parameters) {
+        Signature(Method method) {
+            this(method.getName(), List.of(method.getParameterTypes()));
+        }
     }
 
 }
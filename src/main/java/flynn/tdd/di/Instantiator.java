@@ -0,0 +1,9 @@
+package flynn.tdd.di;
+
+/**
+ * Creates a fully injected component from its resolved dependencies, laid out in the order of
+ * {@link ComponentProvider#getDependencies()}: constructor parameters, then fields, then method parameters.
+ */
+public interface Instantiator<T> {
+    T newInstance(Object[] dependencies) throws Throwable;
+}
@@ -0,0 +1,44 @@
+package flynn.tdd.di;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Stands in for the InjectionProvider of a component bound in lazy mode, introspecting the class only when
+// the component is first validated or resolved.
+class LazyInjectionProvider<T> implements ComponentProvider<T> {
+    private final Class<T> component;
+    private final InjectionMode mode;
+    private volatile ComponentProvider<T> provider;
+
+    LazyInjectionProvider(Class<T> component, InjectionMode mode) {
+        this.component = component;
+        this.mode = mode;
+    }
+
+    // Introspection results are shared through InjectionProvider's class cache, so a racing second call is cheap.
+    private ComponentProvider<T> provider() {
+        ComponentProvider<T> current = provider;
+        if (current == null) provider = current = InjectionProvider.of(component, mode);
+        return current;
+    }
+
+    @Override
+    public T get(Context context) {
+        return provider().get(context);
+    }
+
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        return provider().getAsync(binding);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider().getDependencies();
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        provider().link(binding);
+    }
+}
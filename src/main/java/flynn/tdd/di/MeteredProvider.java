@@ -0,0 +1,52 @@
+package flynn.tdd.di;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts the calls into the wrapped provider: around a binding they are resolutions, beneath its scope they
+// are constructions. Only bound when metrics are enabled.
+class MeteredProvider<T> implements ComponentProvider<T> {
+    private final LongAdder counter;
+    private final ComponentProvider<T> provider;
+
+    MeteredProvider(LongAdder counter, ComponentProvider<T> provider) {
+        this.counter = counter;
+        this.provider = provider;
+    }
+
+    // The provider beneath any metering wrappers, for code that acts on the kind of provider bound; a prototype
+    // is metered twice, for its resolutions and its instances.
+    static ComponentProvider<?> unwrap(ComponentProvider<?> provider) {
+        while (provider instanceof MeteredProvider<?> metered) provider = metered.provider;
+        return provider;
+    }
+
+    @Override
+    public T get(Context context) {
+        counter.increment();
+        return provider.get(context);
+    }
+
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        counter.increment();
+        return provider.getAsync(binding);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        provider.link(binding);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        ComponentProvider<T> fork = provider.fork();
+        return fork == provider ? this : new MeteredProvider<>(counter, fork);
+    }
+}
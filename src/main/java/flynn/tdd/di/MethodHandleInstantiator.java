@@ -0,0 +1,71 @@
+package flynn.tdd.di;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static flynn.tdd.di.InjectionProvider.Injectable;
+
+class MethodHandleInstantiator<T> implements Instantiator<T> {
+    private final MethodHandle injector;
+
+    MethodHandleInstantiator(Injectable<Constructor<T>> constructor, List<Injectable<Field>> fields, List<Injectable<Method>> methods) {
+        this.injector = injector(constructor, fields, methods);
+    }
+
+    @Override
+    public T newInstance(Object[] dependencies) throws Throwable {
+        return (T) (Object) injector.invokeExact(dependencies);
+    }
+
+    // Compiles constructor, field and method injection into one (Object[])Object handle.
+    private static MethodHandle injector(Injectable<? extends Constructor<?>> constructor, List<Injectable<Field>> fields,
+                                         List<Injectable<Method>> methods) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<MethodHandle> members = new ArrayList<>();
+            int offset = constructor.required().length;
+            for (Injectable<Field> field : fields) {
+                members.add(spread(receiver(lookup.unreflectSetter(field.element()), field.element().getModifiers()), 1, offset, 1));
+                offset += 1;
+            }
+            for (Injectable<Method> method : methods) {
+                members.add(spread(receiver(lookup.unreflect(method.element()), method.element().getModifiers()), 1, offset, method.required().length));
+                offset += method.required().length;
+            }
+
+            MethodHandle inject = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, Object[].class);
+            for (int i = members.size() - 1; i >= 0; i--)
+                inject = MethodHandles.foldArguments(inject, members.get(i));
+            return MethodHandles.foldArguments(inject,
+                    spread(lookup.unreflectConstructor(constructor.element()), 0, 0, constructor.required().length));
+        } catch (IllegalAccessException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static MethodHandle receiver(MethodHandle handle, int modifiers) {
+        return Modifier.isStatic(modifiers) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    // Replaces the count parameters after the leading receivers with reads from an Object[] starting at offset.
+    private static MethodHandle spread(MethodHandle handle, int receivers, int offset, int count) {
+        Class<?> returnType = receivers > 0 ? void.class : Object.class;
+        MethodHandle spread = handle.asType(MethodType.genericMethodType(receivers + count).changeReturnType(returnType));
+        MethodHandle element = MethodHandles.arrayElementGetter(Object[].class);
+        for (int i = 0; i < count; i++)
+            spread = MethodHandles.filterArguments(spread, receivers + i, MethodHandles.insertArguments(element, 1, offset + i));
+
+        MethodType type = MethodType.genericMethodType(receivers).appendParameterTypes(Object[].class).changeReturnType(returnType);
+        if (count == 0) return MethodHandles.dropArguments(spread, receivers, Object[].class);
+        int[] reorder = new int[receivers + count];
+        for (int i = 0; i < reorder.length; i++) reorder[i] = Math.min(i, receivers);
+        return MethodHandles.permuteArguments(spread, type, reorder);
+    }
+}
@@ -0,0 +1,42 @@
+package flynn.tdd.di;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Striped counters per component; a scope hit is a resolution of a scoped binding that constructed nothing.
+class Metrics implements ContextMetrics {
+    private final Map<Component, Counters> counters = new ConcurrentHashMap<>();
+
+    <T> ComponentProvider<T> resolutions(Component component, ComponentProvider<T> provider) {
+        return new MeteredProvider<>(counters(component).resolutions, provider);
+    }
+
+    <T> ComponentProvider<T> instances(Component component, ComponentProvider<T> provider, boolean scoped) {
+        Counters counters = counters(component);
+        counters.scoped |= scoped;
+        return new MeteredProvider<>(counters.instances, provider);
+    }
+
+    private Counters counters(Component component) {
+        return counters.computeIfAbsent(component, c -> new Counters());
+    }
+
+    @Override
+    public List<ComponentMetrics> components() {
+        return counters.entrySet().stream().map(e -> e.getValue().metrics(e.getKey())).toList();
+    }
+
+    private static final class Counters {
+        private final LongAdder resolutions = new LongAdder();
+        private final LongAdder instances = new LongAdder();
+        private volatile boolean scoped;
+
+        ComponentMetrics metrics(Component component) {
+            long resolutions = this.resolutions.sum();
+            long instances = this.instances.sum();
+            return new ComponentMetrics(component, resolutions, instances, scoped ? Math.max(0, resolutions - instances) : 0);
+        }
+    }
+}
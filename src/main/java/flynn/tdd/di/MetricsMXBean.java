@@ -0,0 +1,37 @@
+package flynn.tdd.di;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+class MetricsMXBean implements ContextMetricsMXBean {
+    private final ContextMetrics metrics;
+
+    MetricsMXBean(ContextMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Map<String, Long> getResolutions() {
+        return byComponent(ComponentMetrics::resolutions);
+    }
+
+    @Override
+    public Map<String, Long> getInstances() {
+        return byComponent(ComponentMetrics::instances);
+    }
+
+    @Override
+    public Map<String, Long> getScopeHits() {
+        return byComponent(ComponentMetrics::scopeHits);
+    }
+
+    @Override
+    public long getTotalResolutions() {
+        return metrics.components().stream().mapToLong(ComponentMetrics::resolutions).sum();
+    }
+
+    private Map<String, Long> byComponent(ToLongFunction<ComponentMetrics> value) {
+        return metrics.components().stream().collect(Collectors.toMap(m -> m.component().toString(), value::applyAsLong, Long::sum));
+    }
+}
@@ -0,0 +1,54 @@
+package flynn.tdd.di;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// List<T> and Set<T> of every implementation multibound to T. The collections and each member are bound as
+// ordinary components of T under synthetic qualifiers, so validation, linking and child contexts treat them
+// like any other binding. A child context appends its members after those its parent resolves, which stay
+// shared, and rebinds the collections over all of them.
+final class Multibinding {
+    private Multibinding() {
+    }
+
+    static boolean isCollection(Type container) {
+        return container == List.class || container == Set.class;
+    }
+
+    static Component collection(Component element, Class<?> container) {
+        return Component.of(element.type(), new Elements(container, element.qualifier()));
+    }
+
+    static void bind(Map<Component, ComponentProvider<?>> bindings, Component element, List<ComponentProvider<?>> members, FrozenContext parent) {
+        int inherited = 0;
+        while (parent != null && parent.binds(Component.of(element.type(), new Member(element.qualifier(), inherited)))) inherited++;
+        ComponentRef<?>[] refs = new ComponentRef<?>[inherited + members.size()];
+        for (int index = 0; index < refs.length; index++) {
+            Member member = new Member(element.qualifier(), index);
+            if (index >= inherited) bindings.put(Component.of(element.type(), member), members.get(index - inherited));
+            refs[index] = ComponentRef.of(element.type(), member);
+        }
+        bindings.put(collection(element, List.class), new CollectionProvider(List.class, refs));
+        bindings.put(collection(element, Set.class), new CollectionProvider(Set.class, refs));
+    }
+
+    private @interface Multibound {
+    }
+
+    private record Elements(Class<?> container, Annotation qualifier) implements Annotation {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Multibound.class;
+        }
+    }
+
+    private record Member(Annotation qualifier, int index) implements Annotation {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Multibound.class;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package flynn.tdd.di;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The instances of {@link RequestScoped} components for one request. A scope is bound to the calling thread
+ * only for the duration of {@link #run} or {@link #call}, and is dropped when the block returns.
+ */
+public final class RequestScope {
+    private static final Object[] EMPTY = new Object[0];
+    // Strictly set and restored around each block, so nothing outlives the request even on pooled threads.
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private int context;
+    private Object[] instances = EMPTY;
+    private Map<Integer, Object[]> others;
+    private Map<ComponentProvider<?>, Object> unlinked;
+
+    private RequestScope() {
+    }
+
+    public static void run(Runnable block) {
+        call(() -> {
+            block.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(Supplier<T> block) {
+        RequestScope previous = CURRENT.get();
+        CURRENT.set(new RequestScope());
+        try {
+            return block.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static RequestScope current() {
+        RequestScope scope = CURRENT.get();
+        if (scope == null) throw new IllegalStateException("No request scope is active on this thread");
+        return scope;
+    }
+
+    // Instances of the slots of the context with the given id and size, allocated on first use; a request
+    // rarely spans more than one context.
+    <T> T get(int context, int size, int slot, Supplier<T> provider) {
+        Object[] instances = instancesOf(context, size);
+        Object instance = instances[slot];
+        if (instance == null) instances[slot] = instance = provider.get();
+        return (T) instance;
+    }
+
+    <T> T get(ComponentProvider<T> key, Supplier<T> provider) {
+        if (unlinked == null) unlinked = new IdentityHashMap<>();
+        Object instance = unlinked.get(key);
+        if (instance == null) unlinked.put(key, instance = provider.get());
+        return (T) instance;
+    }
+
+    private Object[] instancesOf(int context, int size) {
+        if (this.context == context) return instances;
+        if (this.context == 0) {
+            this.context = context;
+            return instances = new Object[size];
+        }
+        if (others == null) others = new HashMap<>();
+        return others.computeIfAbsent(context, id -> new Object[size]);
+    }
+}
@@ -0,0 +1,17 @@
+package flynn.tdd.di;
+
+import jakarta.inject.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Components annotated with this scope are constructed once per {@link RequestScope} and shared by every
+ * injection inside it.
+ */
+@Scope
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestScoped {
+}
@@ -0,0 +1,55 @@
+package flynn.tdd.di;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class RequestScopedProvider<T> implements ComponentProvider<T> {
+    private ComponentProvider<T> provider;
+    private volatile Slot slot;
+
+    public RequestScopedProvider(ComponentProvider<T> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public T get(Context context) {
+        RequestScope scope = RequestScope.current();
+        Slot slot = this.slot;
+        if (slot != null) return scope.get(slot.context(), slot.size(), slot.index(), () -> provider.get(context));
+        return scope.get(this, () -> provider.get(context));
+    }
+
+    // Resolved on the calling thread, the only one bound to the request.
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        try {
+            return CompletableFuture.completedFuture(get(binding));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        provider.link(binding);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new RequestScopedProvider<>(provider.fork());
+    }
+
+    // Keeps the first slot it is linked to, so the qualifiers it is bound under, and the child and flattened
+    // contexts sharing it, all store one instance per request.
+    synchronized void slot(FrozenContext context, int index) {
+        if (slot == null) slot = new Slot(context.id(), context.size(), index);
+    }
+
+    private record Slot(int context, int size, int index) {
+    }
+}
@@ -0,0 +1,291 @@
+package flynn.tdd.di;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.util.*;
+
+import static flynn.tdd.di.InjectionProvider.Injectable;
+import static flynn.tdd.di.InjectionProvider.Metadata;
+
+// The injection points chosen for each component class and a digest of the last validated graph, kept in a
+// file keyed by a fingerprint of the JVM version, the class path setting and the size and modification time
+// of each class file or jar a recorded class was loaded from. Opening stamps only those files, never the
+// whole class path. The file is memory-mapped and an entry decoded only when its class is bound; a member
+// that no longer resolves, a fingerprint mismatch or a malformed file all fall back to introspection, and
+// save() then rewrites the file.
+final class ResolutionPlan {
+    private static final int MAGIC = 0x464c5950;
+    private static final int VERSION = 2;
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> type : List.of(boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class))
+            PRIMITIVES.put(type.getName(), type);
+    }
+
+    private final Path file;
+    private final Map<String, ByteBuffer> stored = new HashMap<>();
+    private final Map<String, Metadata<?>> recorded = new LinkedHashMap<>();
+    private final Set<String> locations = new TreeSet<>();
+    private final Map<String, Long> stamps = new TreeMap<>();
+    private long graph;
+    private boolean changed;
+
+    private ResolutionPlan(Path file) {
+        this.file = file;
+    }
+
+    static ResolutionPlan open(Path file) {
+        ResolutionPlan plan = new ResolutionPlan(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            plan.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            plan.stored.clear();
+            plan.locations.clear();
+            plan.stamps.clear();
+            plan.graph = 0;
+            plan.changed = true;
+        }
+        return plan;
+    }
+
+    private void read(MappedByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException("not a resolution plan");
+        long fingerprint = buffer.getLong();
+        graph = buffer.getLong();
+        for (int count = buffer.getInt(); count > 0; count--) locations.add(string(buffer));
+        for (String location : locations) stamp(location);
+        if (fingerprint != fingerprint()) throw new IOException("stale resolution plan");
+        for (int count = buffer.getInt(); count > 0; count--) {
+            int length = buffer.getInt();
+            ByteBuffer entry = buffer.slice(buffer.position(), length);
+            stored.put(string(entry.duplicate()), entry);
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    boolean contains(Class<?> component) {
+        return stored.containsKey(component.getName()) || recorded.containsKey(component.getName());
+    }
+
+    // Decodes the recorded metadata of a contained component, introspecting it again if a member no longer resolves.
+    <T> Metadata<T> metadata(Class<T> component) {
+        Metadata<?> recorded = this.recorded.get(component.getName());
+        if (recorded != null && recorded.component == component) return (Metadata<T>) recorded;
+        ByteBuffer entry = stored.get(component.getName());
+        if (entry != null) try {
+            return decode(component, entry.duplicate());
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            stored.remove(component.getName());
+            changed = true;
+        }
+        Metadata<T> metadata = new Metadata<>(component);
+        record(metadata);
+        return metadata;
+    }
+
+    // Classes without a file code source (generated, or from a non-file class loader) cannot be fingerprinted.
+    // A class is stamped by its own class file, or by its jar.
+    void record(Metadata<?> metadata) {
+        Set<String> sources = new HashSet<>();
+        for (Class<?> current = metadata.component; current != null; current = current.getSuperclass()) {
+            if (current.getClassLoader() == null || current.getClassLoader() == ClassLoader.getPlatformClassLoader()) continue;
+            Optional<String> location = location(current);
+            if (location.isEmpty()) return;
+            sources.add(location.get());
+        }
+        try {
+            for (String source : sources) stamp(source);
+        } catch (IOException | RuntimeException e) {
+            return;
+        }
+        recorded.put(metadata.component.getName(), metadata);
+        stored.remove(metadata.component.getName());
+        locations.addAll(sources);
+        changed = true;
+    }
+
+    // Runs validation unless the plan holds a validated graph with the same bindings and dependencies.
+    void validate(Map<Component, ComponentProvider<?>> bindings, Runnable validation) {
+        long digest = digest(bindings);
+        if (digest == graph) return;
+        validation.run();
+        graph = digest;
+        changed = true;
+    }
+
+    // Best effort: a plan that cannot be written only costs the next start its speed-up.
+    void save() {
+        if (!changed) return;
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, encode());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } catch (IOException | RuntimeException e) {
+            changed = true;
+        } finally {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fingerprint());
+        out.writeLong(graph);
+        out.writeInt(locations.size());
+        for (String location : locations) string(out, location);
+        out.writeInt(stored.size() + recorded.size());
+        for (ByteBuffer entry : stored.values()) {
+            byte[] copy = new byte[entry.remaining()];
+            entry.duplicate().get(copy);
+            out.writeInt(copy.length);
+            out.write(copy);
+        }
+        for (Metadata<?> metadata : recorded.values()) {
+            byte[] entry = encode(metadata);
+            out.writeInt(entry.length);
+            out.write(entry);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(Metadata<?> metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        string(out, metadata.component.getName());
+        types(out, metadata.injectConstructor.element().getParameterTypes());
+        out.writeShort(metadata.injectFields.size());
+        for (Injectable<Field> field : metadata.injectFields) {
+            string(out, field.element().getDeclaringClass().getName());
+            string(out, field.element().getName());
+        }
+        out.writeShort(metadata.injectMethods.size());
+        for (Injectable<Method> method : metadata.injectMethods) {
+            string(out, method.element().getDeclaringClass().getName());
+            string(out, method.element().getName());
+            types(out, method.element().getParameterTypes());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> Metadata<T> decode(Class<T> component, ByteBuffer entry) throws ReflectiveOperationException {
+        string(entry);
+        Constructor<T> constructor = component.getDeclaredConstructor(types(component, entry));
+        List<Injectable<Field>> fields = new ArrayList<>();
+        for (int count = entry.getShort(); count > 0; count--)
+            fields.add(Injectable.of(declaring(component, string(entry)).getDeclaredField(string(entry))));
+        List<Injectable<Method>> methods = new ArrayList<>();
+        for (int count = entry.getShort(); count > 0; count--)
+            methods.add(Injectable.of(declaring(component, string(entry)).getDeclaredMethod(string(entry), types(component, entry))));
+        return new Metadata<>(component, Injectable.of(constructor), List.copyOf(fields), List.copyOf(methods));
+    }
+
+    private static Class<?> declaring(Class<?> component, String name) throws ClassNotFoundException {
+        for (Class<?> current = component; current != null; current = current.getSuperclass())
+            if (current.getName().equals(name)) return current;
+        throw new ClassNotFoundException(name);
+    }
+
+    private static void types(DataOutputStream out, Class<?>[] types) throws IOException {
+        out.writeShort(types.length);
+        for (Class<?> type : types) string(out, type.getName());
+    }
+
+    private static Class<?>[] types(Class<?> component, ByteBuffer entry) throws ClassNotFoundException {
+        Class<?>[] types = new Class<?>[entry.getShort()];
+        for (int i = 0; i < types.length; i++) {
+            String name = string(entry);
+            Class<?> primitive = PRIMITIVES.get(name);
+            types[i] = primitive != null ? primitive : Class.forName(name, false, component.getClassLoader());
+        }
+        return types;
+    }
+
+    private static void string(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Optional<String> location(Class<?> type) {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null || !"file".equals(source.getLocation().getProtocol())) return Optional.empty();
+        try {
+            Path location = Path.of(source.getLocation().toURI());
+            if (Files.isDirectory(location)) location = location.resolve(type.getName().replace('.', '/') + ".class");
+            return Optional.of(location.toString());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private long fingerprint() {
+        long hash = hash(hash(0, System.getProperty("java.runtime.version", "")), System.getProperty("java.class.path", ""));
+        for (Map.Entry<String, Long> stamp : stamps.entrySet()) hash = mix(hash(hash, stamp.getKey()), stamp.getValue());
+        return hash;
+    }
+
+    private void stamp(String location) throws IOException {
+        if (stamps.containsKey(location)) return;
+        Path path = Path.of(location);
+        if (!Files.exists(path)) {
+            stamps.put(location, -1L);
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        stamps.put(location, mix(attributes.size(), attributes.lastModifiedTime().toMillis()));
+    }
+
+    static long digest(Map<Component, ComponentProvider<?>> bindings) {
+        long digest = 0;
+        for (Map.Entry<Component, ComponentProvider<?>> binding : bindings.entrySet()) {
+            long hash = hash(binding.getKey());
+            for (ComponentRef<?> dependency : binding.getValue().getDependencies())
+                hash = mix(hash, hash(dependency.key()) + (dependency.isDirect() ? 1 : 0) + (dependency.isOptional() ? 2 : 0));
+            digest += mix(hash, 0);
+        }
+        return digest;
+    }
+
+    private static long hash(Component component) {
+        long hash = hash(0, component.type().getName());
+        return component.qualifier() == null ? hash : hash(hash, component.qualifier().toString());
+    }
+
+    // FNV-1a over the characters, so digests agree across JVMs.
+    private static long hash(long hash, String value) {
+        hash ^= 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        long mixed = (hash ^ value) * 0x9e3779b97f4a7c15L;
+        return mixed ^ (mixed >>> 31);
+    }
+}
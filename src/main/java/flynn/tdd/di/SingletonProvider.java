@@ -1,9 +1,24 @@
 package flynn.tdd.di;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 class SingletonProvider<T> implements ComponentProvider<T> {
-    private T singleton;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(SingletonProvider.class, "state", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // null before first access, a Construction while one thread builds the singleton, then the singleton itself.
+    private volatile Object state;
     private ComponentProvider<T> provider;
 
     public SingletonProvider(ComponentProvider<T> provider) {
@@ -12,12 +27,92 @@ class SingletonProvider<T> implements ComponentProvider<T> {
 
     @Override
     public T get(Context context) {
-        if (singleton == null) singleton = provider.get(context);
-        return singleton;
+        Object current = state;
+        if (current != null && !(current instanceof Construction)) return (T) current;
+        return construct(context);
+    }
+
+    private T construct(Context context) {
+        while (true) {
+            Object current = state;
+            if (current instanceof Construction construction) return (T) construction.await();
+            if (current != null) return (T) current;
+
+            Construction construction = new Construction(Thread.currentThread());
+            if (!STATE.compareAndSet(this, null, construction)) continue;
+            try {
+                T singleton = provider.get(context);
+                state = singleton;
+                construction.complete(singleton);
+                return singleton;
+            } catch (RuntimeException | Error e) {
+                state = null;
+                construction.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    // Concurrent callers, synchronous or not, share the one Construction as their future.
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        while (true) {
+            Object current = state;
+            if (current instanceof Construction construction) return (CompletableFuture<T>) (CompletableFuture<?>) construction.copy();
+            if (current != null) return CompletableFuture.completedFuture((T) current);
+
+            Construction construction = new Construction(null);
+            if (!STATE.compareAndSet(this, null, construction)) continue;
+            try {
+                provider.getAsync(binding).whenComplete((singleton, failure) -> {
+                    if (failure == null) {
+                        state = singleton;
+                        construction.complete(singleton);
+                    } else {
+                        state = null;
+                        construction.completeExceptionally(failure instanceof CompletionException e && e.getCause() != null ? e.getCause() : failure);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                state = null;
+                construction.completeExceptionally(e);
+            }
+            return (CompletableFuture<T>) (CompletableFuture<?>) construction.copy();
+        }
     }
 
     @Override
     public List<ComponentRef<?>> getDependencies() {
         return provider.getDependencies();
     }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        provider.link(binding);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        return new SingletonProvider<>(provider.fork());
+    }
+
+    // Waiters park on the future instead of a monitor, so virtual threads are not pinned during construction.
+    private static class Construction extends CompletableFuture<Object> {
+        private final Thread owner;
+
+        Construction(Thread owner) {
+            this.owner = owner;
+        }
+
+        Object await() {
+            if (owner == Thread.currentThread()) throw new IllegalStateException("Singleton requested during its own construction");
+            try {
+                return join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package flynn.tdd.di;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Times each construction by the wrapped provider. Only bound when a ConstructionProfile is configured, so
+// unprofiled contexts pay nothing.
+class TimedProvider<T> implements ComponentProvider<T> {
+    private final Component component;
+    private final ComponentProvider<T> provider;
+    private final ConstructionProfile profile;
+
+    TimedProvider(Component component, ComponentProvider<T> provider, ConstructionProfile profile) {
+        this.component = component;
+        this.provider = provider;
+        this.profile = profile;
+    }
+
+    @Override
+    public T get(Context context) {
+        ConstructionProfile.Frame frame = profile.enter(component);
+        long start = System.nanoTime();
+        try {
+            return provider.get(context);
+        } finally {
+            profile.exit(frame, System.nanoTime() - start);
+        }
+    }
+
+    // Asynchronous constructions hop between threads, so there is no nesting to attribute self time by.
+    @Override
+    public CompletableFuture<T> getAsync(FrozenContext.Binding binding) {
+        return provider.getAsync(binding);
+    }
+
+    @Override
+    public List<ComponentRef<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(FrozenContext.Binding binding) {
+        provider.link(binding);
+    }
+
+    @Override
+    public ComponentProvider<T> fork() {
+        ComponentProvider<T> fork = provider.fork();
+        return fork == provider ? this : new TimedProvider<>(component, fork, profile);
+    }
+}
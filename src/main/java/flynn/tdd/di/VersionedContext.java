@@ -0,0 +1,76 @@
+package flynn.tdd.di;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A context whose bindings can be swapped while it is in use. Each swap validates only the rebound components
+ * and those depending on them, then publishes a new immutable snapshot at once; lookups never lock and always
+ * see one whole snapshot. Every snapshot is a single flat context keeping the executor, injection mode and
+ * laziness of the one it replaces.
+ */
+public final class VersionedContext implements Context {
+    private volatile Snapshot current;
+
+    public VersionedContext(Context initial) {
+        if (!(initial instanceof FrozenContext frozen)) throw new IllegalArgumentException("Context must be created by ContextConfig");
+        this.current = new Snapshot(frozen, 0);
+    }
+
+    /**
+     * Applies the bindings made by {@code rebinding} on top of the current snapshot and publishes the result.
+     * The current snapshot stays in place if validation fails.
+     *
+     * @return the version of the published snapshot
+     */
+    public synchronized long swap(Consumer<ContextConfig> rebinding) {
+        Snapshot snapshot = current;
+        ContextConfig config = ContextConfig.childOf(snapshot.context());
+        rebinding.accept(config);
+        // The child only validates what the rebinding changed; flattening relinks it into one array, so lookups
+        // never walk a parent chain however many swaps came before.
+        FrozenContext next = ((FrozenContext) config.getContext()).flatten();
+        current = new Snapshot(next, snapshot.version() + 1);
+        return current.version();
+    }
+
+    public long version() {
+        return current.version();
+    }
+
+    /**
+     * The bindings as of now, for a series of lookups that must not observe a swap in between.
+     */
+    public Context snapshot() {
+        return current.context();
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        return current.context().get(ref);
+    }
+
+    @Override
+    public <ComponentType> ComponentType getRequired(ComponentRef<ComponentType> ref) {
+        return current.context().getRequired(ref);
+    }
+
+    @Override
+    public <ComponentType> ComponentType getNullable(ComponentRef<ComponentType> ref) {
+        return current.context().getNullable(ref);
+    }
+
+    @Override
+    public ContextMetrics metrics() {
+        return current.context().metrics();
+    }
+
+    @Override
+    public <ComponentType> CompletableFuture<ComponentType> getAsync(ComponentRef<ComponentType> ref) {
+        return current.context().getAsync(ref);
+    }
+
+    private record Snapshot(FrozenContext context, long version) {
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.inject.Provider;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -13,13 +14,21 @@ import org.mockito.internal.util.collections.Sets;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Nested
@@ -72,6 +81,11 @@ public class ContextTest {
             public ConstructorInjection(Dependency dependency) {
                 this.dependency = dependency;
             }
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
         }
 
         static class FiledInjection implements TestComponent {
@@ -89,6 +103,86 @@ public class ContextTest {
             }
         }
 
+        @Test
+        public void should_get_required_and_nullable_component_without_optional() {
+            TestComponent instance = new TestComponent() {
+            };
+            config.bind(TestComponent.class, instance);
+
+            Context context = config.getContext();
+
+            assertSame(instance, context.getRequired(ComponentRef.of(TestComponent.class)));
+            assertSame(instance, context.getNullable(ComponentRef.of(TestComponent.class)));
+            assertNull(context.getNullable(ComponentRef.of(Dependency.class)));
+            assertThrows(NoSuchElementException.class, () -> context.getRequired(ComponentRef.of(Dependency.class)));
+        }
+
+        @Test
+        public void should_not_see_bindings_added_after_context_created() {
+            Context context = config.getContext();
+            config.bind(TestComponent.class, new TestComponent() {
+            });
+
+            assertTrue(context.get(ComponentRef.of(TestComponent.class)).isEmpty());
+        }
+
+        @Test
+        public void should_resolve_same_ref_in_different_contexts() {
+            TestComponent instance = new TestComponent() {
+            };
+            Dependency dependency = new Dependency() {
+            };
+            config.bind(TestComponent.class, instance);
+            Context first = config.getContext();
+            ContextConfig another = new ContextConfig();
+            another.bind(Dependency.class, dependency);
+            another.bind(TestComponent.class, instance);
+            Context second = another.getContext();
+
+            ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+            assertSame(instance, first.get(ref).get());
+            assertSame(instance, second.get(ref).get());
+            assertSame(instance, first.get(ref).get());
+        }
+
+        @Test
+        public void should_resolve_dependencies_from_the_context_in_use() {
+            Dependency first = new Dependency() {
+            };
+            Dependency second = new Dependency() {
+            };
+            config.bind(TestComponent.class, ConstructorInjection.class);
+            config.bind(Dependency.class, first);
+            Context before = config.getContext();
+            config.bind(Dependency.class, second);
+            Context after = config.getContext();
+
+            assertSame(first, before.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(second, after.get(ComponentRef.of(TestComponent.class)).get().dependency());
+            assertSame(first, before.get(ComponentRef.of(TestComponent.class)).get().dependency());
+        }
+
+        @Test
+        public void should_keep_links_of_every_context_sharing_a_provider() {
+            config.bind(TestComponent.class, ConstructorInjection.class);
+            config.bind(Dependency.class, new Dependency() {
+            });
+            FrozenContext first = (FrozenContext) config.getContext();
+            FrozenContext second = (FrozenContext) config.getContext();
+            ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class);
+            FrozenContext.Binding binding = first.binding(first.slot(ref.component()));
+            Object links = binding.links(unlinked -> {
+                throw new AssertionError("not linked at getContext()");
+            });
+
+            first.get(ref);
+            second.get(ref);
+            first.get(ref);
+            assertSame(links, binding.links(unlinked -> {
+                throw new AssertionError("relinked");
+            }));
+        }
+
         @Test
         public void should_retrieve_bind_type_as_provider() {
             TestComponent instance = new TestComponent() {
@@ -103,6 +197,18 @@ public class ContextTest {
             assertSame(instance, provider.get());
         }
 
+        @Test
+        public void should_reuse_provider_for_same_component() {
+            config.bind(TestComponent.class, new TestComponent() {
+            });
+
+            Context context = config.getContext();
+
+            ComponentRef<Provider<TestComponent>> ref = new ComponentRef<>() {
+            };
+            assertSame(context.get(ref).get(), context.get(ref).get());
+        }
+
         @Test
         public void should_not_retrieve_bind_type_as_unsupported_container() {
             TestComponent instance = new TestComponent() {
@@ -114,6 +220,178 @@ public class ContextTest {
             }).isPresent());
         }
 
+        @Nested
+        public class OptionalAndSupplier {
+            static class OptionalIntegration {
+                @Inject
+                Optional<Dependency> dependency;
+            }
+
+            static class SupplierInjection {
+                final Supplier<Dependency> dependency;
+
+                @Inject
+                public SupplierInjection(Supplier<Dependency> dependency) {
+                    this.dependency = dependency;
+                }
+            }
+
+            @Test
+            public void should_inject_optional_dependency_if_bound() {
+                Dependency dependency = new Dependency() {
+                };
+                config.bind(Dependency.class, dependency);
+                config.bind(OptionalIntegration.class, OptionalIntegration.class);
+
+                assertSame(dependency, config.getContext().get(ComponentRef.of(OptionalIntegration.class)).get().dependency.get());
+            }
+
+            @Test
+            public void should_inject_empty_optional_if_dependency_not_bound() {
+                config.bind(OptionalIntegration.class, OptionalIntegration.class);
+
+                assertFalse(config.getContext().get(ComponentRef.of(OptionalIntegration.class)).get().dependency.isPresent());
+            }
+
+            @Test
+            public void should_reuse_optional_provider_of_bound_component() {
+                config.bind(Dependency.class, new Dependency() {
+                });
+                FrozenContext context = (FrozenContext) config.getContext();
+                ComponentRef<Optional<Dependency>> ref = new ComponentRef<>() {
+                };
+
+                assertSame(context.providerOf(ref), context.providerOf(ref));
+            }
+
+            @Test
+            public void should_retrieve_empty_optional_if_component_not_bound() {
+                Optional<Dependency> dependency = config.getContext().get(new ComponentRef<Optional<Dependency>>() {
+                }).get();
+                assertFalse(dependency.isPresent());
+            }
+
+            @Test
+            public void should_inject_supplier_resolving_dependency_lazily() {
+                Dependency dependency = new Dependency() {
+                };
+                config.bind(Dependency.class, dependency);
+                config.bind(SupplierInjection.class, SupplierInjection.class);
+
+                assertSame(dependency, config.getContext().get(ComponentRef.of(SupplierInjection.class)).get().dependency.get());
+            }
+
+            @Test
+            public void should_throw_exception_if_supplied_dependency_not_found() {
+                config.bind(SupplierInjection.class, SupplierInjection.class);
+
+                assertThrows(DependencyNotFoundException.class, () -> config.getContext());
+            }
+        }
+
+        @Nested
+        public class Multibinding {
+            interface Filter {
+            }
+
+            static class FirstFilter implements Filter {
+            }
+
+            @Singleton
+            static class SecondFilter implements Filter {
+            }
+
+            static class Chain {
+                final List<Filter> filters;
+
+                @Inject
+                public Chain(List<Filter> filters) {
+                    this.filters = filters;
+                }
+            }
+
+            static class FilterDependedOnChain implements Filter {
+                @Inject
+                public FilterDependedOnChain(Chain chain) {
+                }
+            }
+
+            @Test
+            public void should_inject_every_multibound_implementation_in_binding_order() {
+                Filter instance = new Filter() {
+                };
+                config.multibind(Filter.class, FirstFilter.class);
+                config.multibind(Filter.class, instance);
+                config.bind(Chain.class, Chain.class);
+
+                List<Filter> filters = config.getContext().get(ComponentRef.of(Chain.class)).get().filters;
+                assertEquals(2, filters.size());
+                assertTrue(filters.get(0) instanceof FirstFilter);
+                assertSame(instance, filters.get(1));
+            }
+
+            @Test
+            public void should_retrieve_multibound_implementations_as_set() {
+                config.multibind(Filter.class, FirstFilter.class);
+                config.multibind(Filter.class, SecondFilter.class);
+
+                Set<Filter> filters = config.getContext().get(new ComponentRef<Set<Filter>>() {
+                }).get();
+                assertEquals(2, filters.size());
+            }
+
+            @Test
+            public void should_reuse_collection_if_all_members_are_singletons() {
+                config.multibind(Filter.class, SecondFilter.class);
+                Context context = config.getContext();
+
+                ComponentRef<List<Filter>> ref = new ComponentRef<>() {
+                };
+                assertSame(context.get(ref).get(), context.get(ref).get());
+            }
+
+            @Test
+            public void should_append_child_members_after_parent_members() {
+                config.multibind(Filter.class, SecondFilter.class);
+                Context parent = config.getContext();
+                ContextConfig child = ContextConfig.childOf(parent);
+                child.multibind(Filter.class, FirstFilter.class);
+
+                ComponentRef<List<Filter>> ref = new ComponentRef<>() {
+                };
+                List<Filter> filters = child.getContext().get(ref).get();
+                assertEquals(2, filters.size());
+                assertSame(parent.get(ref).get().get(0), filters.get(0));
+                assertTrue(filters.get(1) instanceof FirstFilter);
+                assertEquals(1, parent.get(ref).get().size());
+            }
+
+            @Test
+            public void should_rebuild_collection_if_member_is_not_singleton() {
+                config.multibind(Filter.class, FirstFilter.class);
+                Context context = config.getContext();
+
+                ComponentRef<List<Filter>> ref = new ComponentRef<>() {
+                };
+                assertNotSame(context.get(ref).get().get(0), context.get(ref).get().get(0));
+            }
+
+            @Test
+            public void should_throw_exception_if_multibinding_not_found() {
+                config.bind(Chain.class, Chain.class);
+
+                assertThrows(DependencyNotFoundException.class, () -> config.getContext());
+            }
+
+            @Test
+            public void should_throw_exception_if_cyclic_dependencies_found_through_multibinding() {
+                config.multibind(Filter.class, FilterDependedOnChain.class);
+                config.bind(Chain.class, Chain.class);
+
+                assertThrows(CyclicDependenciesFoundException.class, () -> config.getContext());
+            }
+        }
+
         @Nested
         public class WithQualifier {
 
@@ -148,6 +426,25 @@ public class ContextTest {
                 assertSame(dependency, skywalker.dependency);
             }
 
+            @Test
+            @jakarta.inject.Named("ChosenOne")
+            public void should_match_component_for_equal_qualifiers() throws NoSuchMethodException {
+                Annotation named = WithQualifier.class.getDeclaredMethod("should_match_component_for_equal_qualifiers")
+                        .getAnnotation(jakarta.inject.Named.class);
+                TestComponent instance = new TestComponent() {
+                };
+                config.bind(TestComponent.class, instance, new NamedLiteral("ChosenOne"));
+
+                assertEquals(ComponentRef.of(TestComponent.class, new NamedLiteral("ChosenOne")).component(),
+                        ComponentRef.of(TestComponent.class, named).component());
+                assertSame(instance, config.getContext().get(ComponentRef.of(TestComponent.class, named)).get());
+            }
+
+            @Test
+            public void should_share_canonical_component_for_unqualified_type() {
+                assertSame(ComponentRef.of(TestComponent.class).component(), ComponentRef.of(TestComponent.class).component());
+            }
+
             @Test
             public void should_throw_exception_if_illegal_qualifier_given_to_instance() {
                 TestComponent instance = new TestComponent() {
@@ -180,6 +477,178 @@ public class ContextTest {
                 assertSame(context.get(ComponentRef.of(NotSingleton.class)).get(), context.get(ComponentRef.of(NotSingleton.class)).get());
             }
 
+            @RequestScoped
+            static class PerRequest {
+            }
+
+            @Test
+            public void should_share_request_scoped_component_within_one_request() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                PerRequest first = RequestScope.call(() -> {
+                    PerRequest instance = context.get(ComponentRef.of(PerRequest.class)).get();
+                    assertSame(instance, context.get(ComponentRef.of(PerRequest.class)).get());
+                    return instance;
+                });
+                PerRequest second = RequestScope.call(() -> context.get(ComponentRef.of(PerRequest.class)).get());
+
+                assertNotSame(first, second);
+                assertFalse(RequestScope.isActive());
+            }
+
+            @Test
+            public void should_share_request_scoped_component_within_one_request_with_metrics() {
+                config.metrics();
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                RequestScope.run(() -> assertSame(context.get(ComponentRef.of(PerRequest.class)).get(), context.get(ComponentRef.of(PerRequest.class)).get()));
+                assertEquals(1, context.metrics().component(ComponentRef.of(PerRequest.class).component()).get().instances());
+            }
+
+            @Test
+            public void should_throw_exception_if_request_scoped_component_used_outside_request() {
+                config.bind(PerRequest.class, PerRequest.class);
+                Context context = config.getContext();
+
+                assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(PerRequest.class)));
+            }
+
+            @Test
+            public void should_construct_singleton_exactly_once_under_concurrent_access() throws Exception {
+                AtomicInteger constructed = new AtomicInteger();
+                SingletonProvider<Object> provider = new SingletonProvider<>(context -> {
+                    constructed.incrementAndGet();
+                    return new Object();
+                });
+                ExecutorService executor = Executors.newFixedThreadPool(64);
+                try {
+                    CountDownLatch start = new CountDownLatch(1);
+                    List<Future<Object>> instances = IntStream.range(0, 64).mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return provider.get(config.getContext());
+                    })).toList();
+                    start.countDown();
+
+                    Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+                    for (Future<Object> instance : instances) distinct.add(instance.get());
+                    assertEquals(1, distinct.size());
+                    assertEquals(1, constructed.get());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Singleton
+            static class EagerSingleton {
+                static AtomicInteger constructed = new AtomicInteger();
+
+                EagerSingleton() {
+                    constructed.incrementAndGet();
+                }
+            }
+
+            @Singleton
+            static class EagerDependent {
+                EagerSingleton singleton;
+
+                @Inject
+                public EagerDependent(EagerSingleton singleton) {
+                    this.singleton = singleton;
+                }
+            }
+
+            @Test
+            public void should_initialize_singletons_eagerly_in_dependency_order() {
+                EagerSingleton.constructed.set(0);
+                config.bind(EagerSingleton.class, EagerSingleton.class);
+                config.bind(EagerDependent.class, EagerDependent.class);
+                List<EagerInitialization> reports = new ArrayList<>();
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                try {
+                    config.eager(executor, reports::add);
+                    Context context = config.getContext();
+
+                    assertEquals(1, EagerSingleton.constructed.get());
+                    assertEquals(2, reports.get(0).singletons());
+                    assertSame(context.get(ComponentRef.of(EagerSingleton.class)).get(), context.get(ComponentRef.of(EagerDependent.class)).get().singleton);
+                    assertEquals(1, EagerSingleton.constructed.get());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            // Runs each task inline, numbering it, so a construction tells which initialization task built it.
+            static final ThreadLocal<Integer> TASK = new ThreadLocal<>();
+
+            static Executor numberedTasks() {
+                AtomicInteger tasks = new AtomicInteger();
+                return task -> {
+                    Integer previous = TASK.get();
+                    TASK.set(tasks.incrementAndGet());
+                    try {
+                        task.run();
+                    } finally {
+                        TASK.set(previous);
+                    }
+                };
+            }
+
+            @Singleton
+            static class Prerequisite {
+                final Integer task = TASK.get();
+            }
+
+            @Singleton
+            static class OptionalDependent {
+                final Integer task = TASK.get();
+                final Optional<Prerequisite> prerequisite;
+
+                @Inject
+                public OptionalDependent(Optional<Prerequisite> prerequisite) {
+                    this.prerequisite = prerequisite;
+                }
+            }
+
+            @Singleton
+            static class InheritedDependent {
+                final Integer task = TASK.get();
+                final Prerequisite prerequisite;
+
+                @Inject
+                public InheritedDependent(Prerequisite prerequisite) {
+                    this.prerequisite = prerequisite;
+                }
+            }
+
+            @Test
+            public void should_initialize_singleton_reached_through_optional_before_dependent() {
+                config.bind(Prerequisite.class, Prerequisite.class);
+                config.bind(OptionalDependent.class, OptionalDependent.class);
+                config.eager(numberedTasks());
+                Context context = config.getContext();
+
+                OptionalDependent dependent = context.get(ComponentRef.of(OptionalDependent.class)).get();
+                assertNotNull(dependent.task);
+                assertNotEquals(dependent.task, dependent.prerequisite.get().task);
+            }
+
+            @Test
+            public void should_initialize_singleton_inherited_from_parent_before_dependent() {
+                config.bind(Prerequisite.class, Prerequisite.class);
+                Context parent = config.getContext();
+                ContextConfig child = ContextConfig.childOf(parent);
+                child.bind(InheritedDependent.class, InheritedDependent.class);
+                child.eager(numberedTasks());
+                Context context = child.getContext();
+
+                InheritedDependent dependent = context.get(ComponentRef.of(InheritedDependent.class)).get();
+                assertNotNull(dependent.prerequisite.task);
+                assertNotEquals(dependent.task, dependent.prerequisite.task);
+                assertSame(parent.get(ComponentRef.of(Prerequisite.class)).get(), dependent.prerequisite);
+            }
+
             @Singleton
             static class SingletonAnnotated implements Dependency {
 
@@ -249,6 +718,640 @@ public class ContextTest {
             }
 
         }
+
+        @Nested
+        public class AsyncResolution {
+            static CountDownLatch bothStarted;
+
+            static class SlowLeft {
+                final boolean concurrent;
+
+                @Inject
+                public SlowLeft() throws InterruptedException {
+                    bothStarted.countDown();
+                    concurrent = bothStarted.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            static class SlowRight {
+                final boolean concurrent;
+
+                @Inject
+                public SlowRight() throws InterruptedException {
+                    bothStarted.countDown();
+                    concurrent = bothStarted.await(5, TimeUnit.SECONDS);
+                }
+            }
+
+            static class NeedsBoth {
+                final SlowLeft left;
+                final SlowRight right;
+
+                @Inject
+                public NeedsBoth(SlowLeft left, SlowRight right) {
+                    this.left = left;
+                    this.right = right;
+                }
+            }
+
+            @Test
+            public void should_construct_independent_dependencies_concurrently() throws Exception {
+                bothStarted = new CountDownLatch(2);
+                ExecutorService executor = Executors.newFixedThreadPool(2);
+                try {
+                    config.async(executor);
+                    config.bind(SlowLeft.class, SlowLeft.class);
+                    config.bind(SlowRight.class, SlowRight.class);
+                    config.bind(NeedsBoth.class, NeedsBoth.class);
+
+                    NeedsBoth component = config.getContext().getAsync(ComponentRef.of(NeedsBoth.class)).get(10, TimeUnit.SECONDS);
+                    assertTrue(component.left.concurrent);
+                    assertTrue(component.right.concurrent);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+
+            @Test
+            public void should_resolve_singleton_once_for_concurrent_async_requests() throws Exception {
+                config.bind(WithScope.NotSingleton.class, WithScope.NotSingleton.class, new SingletonLiteral());
+                Context context = config.getContext();
+
+                CompletableFuture<WithScope.NotSingleton> first = context.getAsync(ComponentRef.of(WithScope.NotSingleton.class));
+                CompletableFuture<WithScope.NotSingleton> second = context.getAsync(ComponentRef.of(WithScope.NotSingleton.class));
+
+                assertSame(first.get(), second.get());
+                assertSame(first.get(), context.get(ComponentRef.of(WithScope.NotSingleton.class)).get());
+            }
+
+            @Test
+            public void should_fail_future_if_component_not_found() {
+                CompletableFuture<WithScope.NotSingleton> future = config.getContext().getAsync(ComponentRef.of(WithScope.NotSingleton.class));
+
+                ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+                assertTrue(exception.getCause() instanceof NoSuchElementException);
+            }
+        }
+    }
+
+    @Nested
+    public class Profiling {
+        static class SlowDependency implements Dependency {
+            public SlowDependency() throws InterruptedException {
+                Thread.sleep(20);
+            }
+        }
+
+        @Test
+        public void should_record_construction_times_per_component() {
+            ConstructionProfile profile = new ConstructionProfile();
+            config.profile(profile);
+            config.bind(Dependency.class, SlowDependency.class);
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+
+            Context context = config.getContext();
+            context.get(ComponentRef.of(TestComponent.class)).get();
+            context.get(ComponentRef.of(TestComponent.class)).get();
+
+            Map<Component, ComponentTiming> timings = new HashMap<>();
+            for (ComponentTiming timing : profile.timings()) timings.put(timing.component(), timing);
+            ComponentTiming component = timings.get(ComponentRef.of(TestComponent.class).component());
+            ComponentTiming dependency = timings.get(ComponentRef.of(Dependency.class).component());
+
+            assertEquals(2, component.constructions());
+            assertEquals(2, dependency.constructions());
+            assertTrue(component.inclusive().compareTo(dependency.inclusive()) >= 0);
+            assertEquals(component.inclusive().minus(dependency.inclusive()), component.self());
+            assertTrue(dependency.self().compareTo(Duration.ofMillis(40)) >= 0);
+            assertEquals(2, profile.slowest(5).size());
+        }
+
+        @Test
+        public void should_emit_timed_flight_recorder_events() throws Exception {
+            ConstructionProfile profile = new ConstructionProfile();
+            config.profile(profile);
+            config.bind(Dependency.class, SlowDependency.class);
+            Context context = config.getContext();
+
+            Path file = Files.createTempFile("construction", ".jfr");
+            try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+                recording.enable("flynn.tdd.di.Construction");
+                recording.start();
+                context.get(ComponentRef.of(Dependency.class)).get();
+                recording.stop();
+                recording.dump(file);
+                List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(file);
+                assertEquals(1, events.size());
+                assertTrue(events.get(0).getDuration().compareTo(Duration.ofMillis(20)) >= 0);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        public void should_report_critical_path_from_slowest_construction() {
+            ConstructionProfile profile = new ConstructionProfile();
+            config.profile(profile);
+            config.bind(Dependency.class, SlowDependency.class);
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+
+            config.getContext().get(ComponentRef.of(TestComponent.class)).get();
+
+            assertEquals(List.of(ComponentRef.of(TestComponent.class).component(), ComponentRef.of(Dependency.class).component()), profile.criticalPath());
+            assertTrue(profile.report(5).contains("Critical path"));
+        }
+    }
+
+    @Nested
+    public class RuntimeMetrics {
+        static class Prototype {
+        }
+
+        @Singleton
+        static class Shared {
+        }
+
+        @Test
+        public void should_count_resolutions_instances_and_scope_hits() {
+            config.metrics();
+            config.bind(Prototype.class, Prototype.class);
+            config.bind(Shared.class, Shared.class);
+            Context context = config.getContext();
+
+            for (int i = 0; i < 3; i++) {
+                context.get(ComponentRef.of(Prototype.class));
+                context.get(ComponentRef.of(Shared.class));
+            }
+
+            assertEquals(new ComponentMetrics(ComponentRef.of(Prototype.class).component(), 3, 3, 0),
+                    context.metrics().component(ComponentRef.of(Prototype.class).component()).get());
+            assertEquals(new ComponentMetrics(ComponentRef.of(Shared.class).component(), 3, 1, 2),
+                    context.metrics().component(ComponentRef.of(Shared.class).component()).get());
+        }
+
+        @Test
+        public void should_count_nothing_by_default() {
+            config.bind(Prototype.class, Prototype.class);
+            Context context = config.getContext();
+            context.get(ComponentRef.of(Prototype.class));
+
+            assertSame(ContextMetrics.NONE, context.metrics());
+            assertTrue(context.metrics().components().isEmpty());
+        }
+
+        @Test
+        public void should_expose_metrics_as_mbean() throws Exception {
+            config.metrics();
+            config.bind(Prototype.class, Prototype.class);
+            Context context = config.getContext();
+            context.get(ComponentRef.of(Prototype.class));
+
+            javax.management.MBeanServer server = javax.management.MBeanServerFactory.newMBeanServer();
+            javax.management.ObjectName name = context.metrics().register(server, "flynn.tdd.di:type=ContextMetrics");
+            assertEquals(1L, server.getAttribute(name, "TotalResolutions"));
+        }
+    }
+
+    @Nested
+    public class GraphModel {
+        @Singleton
+        static class Leaf {
+        }
+
+        static class Middle {
+            @Inject
+            Leaf leaf;
+        }
+
+        @Singleton
+        static class Left {
+            @Inject
+            Middle middle;
+        }
+
+        @Singleton
+        static class Right {
+            @Inject
+            Provider<Leaf> leaf;
+        }
+
+        @Singleton
+        static class Root {
+            @Inject
+            Left left;
+            @Inject
+            Right right;
+        }
+
+        private DependencyGraph graph() {
+            config.bind(Leaf.class, Leaf.class);
+            config.bind(Middle.class, Middle.class);
+            config.bind(Left.class, Left.class);
+            config.bind(Right.class, Right.class);
+            config.bind(Root.class, Root.class);
+            return DependencyGraph.of(config.getContext());
+        }
+
+        private Component component(Class<?> type) {
+            return ComponentRef.of(type).component();
+        }
+
+        @Test
+        public void should_model_lifetimes_and_dependency_kinds() {
+            DependencyGraph graph = graph();
+
+            assertTrue(graph.nodes().contains(new DependencyGraph.Node(component(Leaf.class), DependencyGraph.Lifetime.SINGLETON)));
+            assertTrue(graph.nodes().contains(new DependencyGraph.Node(component(Middle.class), DependencyGraph.Lifetime.PROTOTYPE)));
+            assertEquals(Set.of(
+                    new DependencyGraph.Edge(component(Middle.class), component(Leaf.class), DependencyGraph.Kind.DIRECT),
+                    new DependencyGraph.Edge(component(Left.class), component(Middle.class), DependencyGraph.Kind.DIRECT),
+                    new DependencyGraph.Edge(component(Right.class), component(Leaf.class), DependencyGraph.Kind.PROVIDER),
+                    new DependencyGraph.Edge(component(Root.class), component(Left.class), DependencyGraph.Kind.DIRECT),
+                    new DependencyGraph.Edge(component(Root.class), component(Right.class), DependencyGraph.Kind.DIRECT)), new HashSet<>(graph.edges()));
+        }
+
+        @Test
+        public void should_see_through_metering_for_lifetimes() {
+            config.metrics();
+            DependencyGraph graph = graph();
+
+            assertTrue(graph.nodes().contains(new DependencyGraph.Node(component(Middle.class), DependencyGraph.Lifetime.PROTOTYPE)));
+            assertTrue(graph.nodes().contains(new DependencyGraph.Node(component(Leaf.class), DependencyGraph.Lifetime.SINGLETON)));
+            assertTrue(graph.toDot().contains("Middle\\nprototype"));
+        }
+
+        @Test
+        public void should_export_dot_and_json() {
+            DependencyGraph graph = graph();
+
+            String dot = graph.toDot();
+            assertTrue(dot.startsWith("digraph components {"));
+            assertTrue(dot.contains("Leaf\\nsingleton"));
+            assertTrue(dot.contains("[label=\"provider\", style=dashed]"));
+            String json = graph.toJson();
+            assertTrue(json.contains("\"type\":\"" + Middle.class.getName() + "\",\"qualifier\":null,\"lifetime\":\"PROTOTYPE\""));
+            assertTrue(json.contains("\"kind\":\"PROVIDER\""));
+        }
+
+        @Test
+        public void should_find_critical_path_and_width_of_singleton_initialization() {
+            Map<Component, Duration> costs = Map.of(component(Leaf.class), Duration.ofNanos(10), component(Middle.class), Duration.ofNanos(5),
+                    component(Left.class), Duration.ofNanos(1), component(Right.class), Duration.ofNanos(30), component(Root.class), Duration.ofNanos(2));
+
+            DependencyGraph.StartupAnalysis analysis = graph().analyze(costs::get);
+
+            assertEquals(List.of(component(Right.class), component(Root.class)), analysis.criticalPath());
+            assertEquals(Duration.ofNanos(32), analysis.criticalPathTime());
+            assertEquals(Duration.ofNanos(48), analysis.totalTime());
+            assertEquals(2, analysis.width());
+            assertEquals(1.5, analysis.parallelism(), 0.0001);
+        }
+    }
+
+    @Nested
+    public class PersistedPlan {
+        @TempDir
+        Path directory;
+
+        Dependency dependency = new Dependency() {
+        };
+
+        static class Base {
+            @Inject
+            Dependency field;
+            Dependency method;
+
+            @Inject
+            void install(Dependency dependency) {
+                this.method = dependency;
+            }
+        }
+
+        static class Planned extends Base {
+            final Dependency constructor;
+
+            @Inject
+            public Planned(Dependency dependency) {
+                this.constructor = dependency;
+            }
+        }
+
+        private Planned resolve(Path file) {
+            ContextConfig config = new ContextConfig();
+            config.plan(file);
+            config.bind(Dependency.class, dependency);
+            config.bind(Planned.class, Planned.class);
+            return config.getContext().get(ComponentRef.of(Planned.class)).get();
+        }
+
+        @Test
+        public void should_record_plan_and_inject_from_it() {
+            Path file = directory.resolve("context.plan");
+            resolve(file);
+            assertTrue(ResolutionPlan.open(file).contains(Planned.class));
+
+            Planned planned = resolve(file);
+            assertSame(dependency, planned.constructor);
+            assertSame(dependency, planned.field);
+            assertSame(dependency, planned.method);
+        }
+
+        @Test
+        public void should_discard_plan_if_recorded_class_file_changes() throws Exception {
+            Path file = directory.resolve("context.plan");
+            resolve(file);
+            Path classFile = Path.of(Planned.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .resolve(Planned.class.getName().replace('.', '/') + ".class");
+            FileTime modified = Files.getLastModifiedTime(classFile);
+            try {
+                Files.setLastModifiedTime(classFile, FileTime.fromMillis(modified.toMillis() + 1000));
+                assertFalse(ResolutionPlan.open(file).contains(Planned.class));
+            } finally {
+                Files.setLastModifiedTime(classFile, modified);
+            }
+        }
+
+        @Test
+        public void should_share_cached_instantiator_with_planned_provider() {
+            Path file = directory.resolve("context.plan");
+            resolve(file);
+            ResolutionPlan plan = ResolutionPlan.open(file);
+
+            assertSame(new InjectionProvider<>(Planned.class).instantiator(),
+                    InjectionProvider.of(Planned.class, InjectionMode.defaultMode(), plan).instantiator());
+        }
+
+        @Test
+        public void should_fall_back_and_rewrite_unreadable_plan() throws Exception {
+            Path file = directory.resolve("context.plan");
+            Files.write(file, new byte[]{1, 2, 3});
+
+            assertSame(dependency, resolve(file).field);
+            assertTrue(ResolutionPlan.open(file).contains(Planned.class));
+        }
+
+        @Test
+        public void should_leave_no_temporary_file_when_save_fails() throws Exception {
+            Path file = directory.resolve("context.plan");
+            Files.createDirectories(file.resolve("occupied"));
+
+            assertSame(dependency, resolve(file).field);
+            assertTrue(Files.isDirectory(file));
+            assertFalse(Files.exists(directory.resolve("context.plan.tmp")));
+        }
+
+        @Test
+        public void should_validate_graph_differing_from_plan() {
+            Path file = directory.resolve("context.plan");
+            resolve(file);
+
+            ContextConfig config = new ContextConfig();
+            config.plan(file);
+            config.bind(Planned.class, Planned.class);
+            assertThrows(DependencyNotFoundException.class, config::getContext);
+        }
+    }
+
+    @Nested
+    public class ChildContext {
+        Dependency parentDependency = new Dependency() {
+        };
+
+        static class Shared implements AnotherDependency {
+        }
+
+        @BeforeEach
+        public void parent() {
+            config.bind(Dependency.class, parentDependency);
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class, new SingletonLiteral());
+            config.bind(AnotherDependency.class, Shared.class, new SingletonLiteral());
+        }
+
+        @Test
+        public void should_recreate_bindings_depending_on_override() {
+            Context parent = config.getContext();
+            Dependency childDependency = new Dependency() {
+            };
+            ContextConfig child = ContextConfig.childOf(parent);
+            child.bind(Dependency.class, childDependency);
+
+            Context context = child.getContext();
+            ComponentWithInjectConstructor component = (ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get();
+            assertSame(childDependency, component.getDependency());
+            assertSame(parentDependency, ((ComponentWithInjectConstructor) parent.get(ComponentRef.of(TestComponent.class)).get()).getDependency());
+        }
+
+        @RequestScoped
+        static class PerRequest {
+        }
+
+        @Test
+        public void should_share_request_scoped_instance_with_parent_within_one_request() {
+            config.bind(PerRequest.class, PerRequest.class);
+            Context parent = config.getContext();
+            ContextConfig child = ContextConfig.childOf(parent);
+            child.bind(Dependency.class, new Dependency() {
+            });
+            Context context = child.getContext();
+
+            Context flat = ((FrozenContext) context).flatten();
+
+            RequestScope.run(() -> {
+                PerRequest instance = context.get(ComponentRef.of(PerRequest.class)).get();
+                assertSame(instance, parent.get(ComponentRef.of(PerRequest.class)).get());
+                assertSame(instance, flat.get(ComponentRef.of(PerRequest.class)).get());
+                assertSame(instance, context.get(ComponentRef.of(PerRequest.class)).get());
+            });
+        }
+
+        @Test
+        public void should_share_unaffected_singletons_with_parent() {
+            Context parent = config.getContext();
+            ContextConfig child = ContextConfig.childOf(parent);
+            child.bind(Dependency.class, new Dependency() {
+            });
+
+            Context context = child.getContext();
+            assertSame(parent.get(ComponentRef.of(AnotherDependency.class)).get(), context.get(ComponentRef.of(AnotherDependency.class)).get());
+        }
+
+        @Test
+        public void should_throw_exception_if_override_dependency_not_found() {
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(Dependency.class, CyclicDependencyProviderConstructor.class);
+            child.bind(AnotherDependency.class, AnotherDependencyDependedOnMissing.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, child::getContext);
+            assertEquals(String.class, exception.getDependency().type());
+        }
+
+        static class CyclicDependencyProviderConstructor implements Dependency {
+            @Inject
+            public CyclicDependencyProviderConstructor(Provider<TestComponent> component) {
+            }
+        }
+
+        static class AnotherDependencyDependedOnMissing implements AnotherDependency {
+            @Inject
+            public AnotherDependencyDependedOnMissing(String missing) {
+            }
+        }
+
+        static class DependencyDependedOnComponent implements Dependency {
+            @Inject
+            public DependencyDependedOnComponent(TestComponent component) {
+            }
+        }
+
+        @Test
+        public void should_throw_exception_if_override_introduces_cycle() {
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(Dependency.class, DependencyDependedOnComponent.class);
+
+            assertThrows(CyclicDependenciesFoundException.class, child::getContext);
+        }
+
+        @Test
+        public void should_resolve_async_on_parent_executor() throws Exception {
+            AtomicInteger tasks = new AtomicInteger();
+            config.async(task -> {
+                tasks.incrementAndGet();
+                task.run();
+            });
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(Dependency.class, new Dependency() {
+            });
+
+            child.getContext().getAsync(ComponentRef.of(TestComponent.class)).get(10, TimeUnit.SECONDS);
+            assertTrue(tasks.get() > 0);
+        }
+
+        @Test
+        public void should_validate_child_of_lazy_parent_on_demand() {
+            config.lazy();
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(AnotherDependency.class, AnotherDependencyDependedOnMissing.class);
+
+            Context context = child.getContext();
+            assertThrows(DependencyNotFoundException.class, () -> context.get(ComponentRef.of(AnotherDependency.class)));
+        }
+
+        interface Unused {
+        }
+
+        @Test
+        public void should_not_introspect_lazy_parent_to_create_child() {
+            config.lazy();
+            config.bind(Unused.class, Unused.class);
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(Dependency.class, new Dependency() {
+            });
+
+            Context context = assertDoesNotThrow(child::getContext);
+            assertThrows(IllegalComponentException.class, () -> context.get(ComponentRef.of(Unused.class)));
+        }
+
+        @Test
+        public void should_recreate_bindings_depending_on_override_of_lazy_parent_on_first_use() {
+            config.lazy();
+            Context parent = config.getContext();
+            Dependency childDependency = new Dependency() {
+            };
+            ContextConfig child = ContextConfig.childOf(parent);
+            child.bind(Dependency.class, childDependency);
+
+            Context context = child.getContext();
+            ComponentWithInjectConstructor component = (ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get();
+            assertSame(childDependency, component.getDependency());
+            assertSame(component, context.get(ComponentRef.of(TestComponent.class)).get());
+            assertSame(parentDependency, ((ComponentWithInjectConstructor) parent.get(ComponentRef.of(TestComponent.class)).get()).getDependency());
+            assertSame(parent.get(ComponentRef.of(AnotherDependency.class)).get(), context.get(ComponentRef.of(AnotherDependency.class)).get());
+        }
+
+        @Test
+        public void should_throw_exception_if_override_of_lazy_parent_introduces_cycle() {
+            config.lazy();
+            ContextConfig child = ContextConfig.childOf(config.getContext());
+            child.bind(Dependency.class, DependencyDependedOnComponent.class);
+
+            Context context = child.getContext();
+            assertThrows(CyclicDependenciesFoundException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+        }
+    }
+
+    @Nested
+    public class HotSwap {
+        static class Original implements Dependency {
+        }
+
+        static class Replacement implements Dependency {
+        }
+
+        @BeforeEach
+        public void bindings() {
+            config.bind(Dependency.class, Original.class);
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class);
+        }
+
+        @Test
+        public void should_resolve_swapped_binding_after_publication() {
+            VersionedContext context = new VersionedContext(config.getContext());
+            Context before = context.snapshot();
+
+            long version = context.swap(rebinding -> rebinding.bind(Dependency.class, Replacement.class));
+
+            assertEquals(1, version);
+            assertTrue(((ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get()).getDependency() instanceof Replacement);
+            assertTrue(((ComponentWithInjectConstructor) before.get(ComponentRef.of(TestComponent.class)).get()).getDependency() instanceof Original);
+        }
+
+        @Test
+        public void should_keep_current_snapshot_if_swap_invalid() {
+            VersionedContext context = new VersionedContext(config.getContext());
+
+            assertThrows(DependencyNotFoundException.class, () -> context.swap(rebinding -> rebinding.bind(Dependency.class, DependencyDependedOnAnotherDependency.class)));
+
+            assertEquals(0, context.version());
+            assertTrue(context.get(ComponentRef.of(Dependency.class)).get() instanceof Original);
+        }
+
+        @Test
+        public void should_keep_resolving_after_many_swaps() {
+            VersionedContext context = new VersionedContext(config.getContext());
+            for (int i = 0; i < 20; i++) {
+                Class<? extends Dependency> implementation = i % 2 == 0 ? Replacement.class : Original.class;
+                context.swap(rebinding -> rebinding.bind(Dependency.class, (Class<Dependency>) implementation));
+            }
+
+            assertEquals(20, context.version());
+            assertTrue(((ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get()).getDependency() instanceof Original);
+        }
+
+        @Test
+        public void should_recreate_singletons_depending_on_swapped_binding_of_lazy_context() {
+            config.lazy();
+            config.bind(TestComponent.class, ComponentWithInjectConstructor.class, new SingletonLiteral());
+            VersionedContext context = new VersionedContext(config.getContext());
+            assertTrue(((ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get()).getDependency() instanceof Original);
+
+            context.swap(rebinding -> rebinding.bind(Dependency.class, Replacement.class));
+
+            assertTrue(((ComponentWithInjectConstructor) context.get(ComponentRef.of(TestComponent.class)).get()).getDependency() instanceof Replacement);
+        }
+
+        @Test
+        public void should_keep_executor_of_swapped_snapshot() throws Exception {
+            AtomicInteger tasks = new AtomicInteger();
+            config.async(task -> {
+                tasks.incrementAndGet();
+                task.run();
+            });
+            VersionedContext context = new VersionedContext(config.getContext());
+            context.swap(rebinding -> rebinding.bind(Dependency.class, Replacement.class));
+
+            context.getAsync(ComponentRef.of(TestComponent.class)).get(10, TimeUnit.SECONDS);
+            assertTrue(tasks.get() > 0);
+        }
     }
 
     @Nested
@@ -421,6 +1524,77 @@ public class ContextTest {
             assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
         }
 
+        @Test
+        public void should_validate_deep_dependency_chain_without_recursion() {
+            Map<Component, ComponentProvider<?>> chain = new HashMap<>();
+            int length = 100_000;
+            for (int i = 0; i < length; i++) {
+                List<ComponentRef<?>> dependencies = i + 1 < length ? List.of(ComponentRef.of(Object.class, new NamedLiteral(String.valueOf(i + 1)))) : List.of();
+                chain.put(new Component(Object.class, new NamedLiteral(String.valueOf(i))), new ComponentProvider<>() {
+                    @Override
+                    public Object get(Context context) {
+                        return null;
+                    }
+
+                    @Override
+                    public List<ComponentRef<?>> getDependencies() {
+                        return dependencies;
+                    }
+                });
+            }
+
+            assertDoesNotThrow(() -> new FrozenContext(chain).validate());
+        }
+
+        @Nested
+        public class LazyValidation {
+            @BeforeEach
+            public void lazy() {
+                config.lazy();
+            }
+
+            @Test
+            public void should_only_validate_component_when_requested() {
+                config.bind(TestComponent.class, MissingDependencyConstructor.class);
+                config.bind(AnotherDependency.class, new AnotherDependency() {
+                });
+
+                Context context = config.getContext();
+                assertTrue(context.get(ComponentRef.of(AnotherDependency.class)).isPresent());
+
+                DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+                assertEquals(Dependency.class, exception.getDependency().type());
+                assertThrows(DependencyNotFoundException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+            }
+
+            @Test
+            public void should_throw_exception_if_cyclic_dependencies_found_on_request() {
+                config.bind(TestComponent.class, CyclicComponentInjectConstructor.class);
+                config.bind(Dependency.class, CyclicDependencyInjectConstructor.class);
+
+                Context context = config.getContext();
+                assertThrows(CyclicDependenciesFoundException.class, () -> context.get(ComponentRef.of(Dependency.class)));
+            }
+
+            @Test
+            public void should_defer_introspection_until_requested() {
+                config.bind(TestComponent.class, TestComponent.class);
+
+                Context context = config.getContext();
+                assertThrows(IllegalComponentException.class, () -> context.get(ComponentRef.of(TestComponent.class)));
+            }
+
+            @Test
+            public void should_resolve_component_once_validated() {
+                config.bind(TestComponent.class, CyclicComponentInjectConstructor.class);
+                config.bind(Dependency.class, CyclicDependencyProviderConstructor.class);
+
+                Context context = config.getContext();
+                assertTrue(context.get(ComponentRef.of(TestComponent.class)).isPresent());
+                assertTrue(context.get(ComponentRef.of(Dependency.class)).isPresent());
+            }
+        }
+
         @Nested
         public class WithQualifier {
             @Test
@@ -64,6 +64,38 @@ public class InjectTest {
                 assertSame(dependency, instance.dependency);
             }
 
+            static class ThrowingConstructor {
+                static Throwable thrown;
+
+                public ThrowingConstructor() throws Throwable {
+                    throw thrown;
+                }
+            }
+
+            @Test
+            public void should_propagate_unchecked_throwables_from_constructor_unwrapped() {
+                ThrowingConstructor.thrown = new StackOverflowError();
+                assertSame(ThrowingConstructor.thrown, assertThrows(StackOverflowError.class, () -> new InjectionProvider<>(ThrowingConstructor.class).get(context)));
+                ThrowingConstructor.thrown = new IllegalStateException();
+                assertSame(ThrowingConstructor.thrown, assertThrows(IllegalStateException.class, () -> new InjectionProvider<>(ThrowingConstructor.class).get(context)));
+            }
+
+            @Test
+            public void should_wrap_checked_exception_from_constructor() {
+                ThrowingConstructor.thrown = new Exception();
+                RuntimeException exception = assertThrows(RuntimeException.class, () -> new InjectionProvider<>(ThrowingConstructor.class).get(context));
+                assertSame(ThrowingConstructor.thrown, exception.getCause());
+            }
+
+            @Test
+            public void should_share_introspection_between_providers_of_same_component() {
+                InjectionProvider<InjectConstructor> provider = new InjectionProvider<>(InjectConstructor.class, InjectionMode.METHOD_HANDLE);
+                InjectionProvider<InjectConstructor> another = new InjectionProvider<>(InjectConstructor.class, InjectionMode.METHOD_HANDLE);
+
+                assertSame(provider.instantiator(), another.instantiator());
+                assertSame(provider.getDependencies().get(0), another.getDependencies().get(0));
+            }
+
             @Test
             public void should_include_dependency_from_inject_constructor() {
                 InjectionProvider<InjectConstructor> provider = new InjectionProvider<>(InjectConstructor.class);
@@ -199,6 +231,13 @@ public class InjectTest {
                 assertSame(dependency, component.dependency);
             }
 
+            @Test
+            public void should_inject_dependency_via_hidden_class_instantiator() {
+                InjectionProvider<SubclassWithFieldInjection> provider = new InjectionProvider<>(SubclassWithFieldInjection.class, InjectionMode.HIDDEN_CLASS);
+                assertTrue(provider.instantiator().getClass().isHidden());
+                assertSame(dependency, provider.get(context).dependency);
+            }
+
             @Test
             public void should_include_dependency_from_field_dependency() {
                 InjectionProvider<ComponentWithFiledInjection> provider = new InjectionProvider<>(ComponentWithFiledInjection.class);
@@ -374,6 +413,15 @@ public class InjectTest {
                 assertEquals(0, component.superCalled);
             }
 
+            static class IndirectSubclassOverrideWithNoInject extends SubclassOverrideSuperClassWithNoInject {
+            }
+
+            @Test
+            public void should_not_call_inject_method_if_overridden_with_no_inject_higher_in_hierarchy() {
+                IndirectSubclassOverrideWithNoInject component = new InjectionProvider<>(IndirectSubclassOverrideWithNoInject.class).get(context);
+                assertEquals(0, component.superCalled);
+            }
+
             @Test
             public void should_include_dependencies_from_inject_method() {
                 InjectionProvider<InjectMethodWithDependency> provider = new InjectionProvider<>(InjectMethodWithDependency.class);